@@ -42,6 +42,8 @@ public class Constants {
         public static final double SPEED_SENSITIVITY_LOW = 1;
         public static final double ROTATION_SENSITIVITY = 0.5;
         public static final double CREEP_FACTOR = 0.25;
+        public static final double TURN_IN_PLACE_FACTOR = 0.8;
+        public static final int SENSITIVITY_TABLE_SIZE = 101; // entries from 0 to 1 in the sensitivity lookup tables
 
         public static final int CPR = 8192;
         public static final double ENCODER_CONVERSION = 6.85714286;
@@ -94,6 +96,13 @@ public class Constants {
         public static final double DISTANCE_TOLERANCE = 2.0;
         public static final double LIMELIGHT_ODOMETRY_ZONE = 150; //inches, we are saying if our distance isnt within this range dont update pose
         public static final double ELEVATOR_LIMIT = 0.3;
+
+        // On-the-fly trajectories (DriveToPose) are cached by start and end, rounded to these
+        public static final double PATH_POSITION_QUANTUM = 0.1; // meters
+        public static final double PATH_HEADING_QUANTUM = 5; // degrees
+        public static final double PATH_VELOCITY_QUANTUM = 0.25; // meters per second
+        public static final int PATH_CACHE_SIZE = 32;
+        public static final double PATH_GENERATION_TIMEOUT = 0.5; // seconds
     }
 
     public static class Turret {
@@ -109,6 +118,11 @@ public class Constants {
         public static final int ACCELERATION = 16000; // in ticks
         public static final double ABS_OFFSET = 239;// if the turret coasts this value changes, need to find a way to set this position.
         public static final double MANUAL_OFFSET = -1.0;
+        // TurretWrapPlanner
+        public static final double WRAP_MIN_TARGET_RATE = 5; // deg/s, slower targets are treated as still
+        public static final double WRAP_RATE_TIME_CONSTANT = 0.1; // seconds, smoothing of the target rate
+        public static final double WRAP_RATE_RESET_TIME = 0.1; // seconds between setpoints before the rate starts over
+        public static final double WRAP_JUMP = 30; // degrees in one step that means a new target
 
 
         public static class Position {
@@ -180,6 +194,13 @@ public class Constants {
 
         public static final long AUTO_WAIT_PERIOD = 500;
         public static final long MANUAL_WAIT_PERIOD = 3000;
+
+        public static final boolean AUTO_SHIFT_ENABLED = true;
+        public static final double VELOCITY_TIME_CONSTANT = 0.1; // seconds, single pole filter on wheel speed
+        public static final double SHIFT_UP_THROTTLE = 0.6; // don't shift up unless the driver is asking for speed
+        public static final double PUSHING_CURRENT = 50; // amps per master, above this we're pushing or bogging down
+        public static final double PUSHING_SPEED = 60; // inches per second, kick down from high gear below this when pushing
+        public static final double PUSHING_THROTTLE = 0.7;
     }
     public class Limelight {
         public static final double TARGET_HEIGHT = 92;
@@ -214,7 +235,10 @@ public class Constants {
         public static final double MOTOR_SLOW_PERCENT_SPEED = -0.75;
         public static final int AUTOSPIN_SLOW_AT_WEDGES = 28;
         public static final int AUTOSPIN_STOP_AT_WEDGES = 31;
-        public static final double SENSOR_SAMPLE_PERIOD_SECONDS = 0.01;
+        public static final double SENSOR_MEASUREMENT_PERIOD_SECONDS = 0.025; // matches kColorRate25ms
+        public static final double SENSOR_SAMPLE_PERIOD_SECONDS = 0.01; // polled faster than it measures, repeats dropped
+        public static final int HISTORY = 40; // readings kept by ColorSensorReader
+        public static final int DEBOUNCE_SAMPLES = 2; // readings in a row before a color counts
         public static final boolean ASYNC_COLOR_SAMPLING = true;
         public static final boolean USE_HOMEMADE_COLOR_MATCHING_ALGORITHM = true; // false = use REV Robotic's Algo
         public static final double REV_ALOGORITHM_CONFIDENCE_FACTOR = 0.75; // default is 0.95
@@ -241,6 +265,14 @@ public class Constants {
         public static final double FAR_TARGET_SHOOTER_SPEED_PERCENT = 5500;   /* TBD RPMs INSTEAD OF PERCENT */
         public static final double TICKS_TO_ROTATIONS = 2048;
         public static final double GEAR_RATIO = 1.25;
+
+        // Flywheel spin-up model (see FlywheelModel), refitted on the robot from each spin-up
+        public static final double SPIN_UP_TIME_CONSTANT = 0.6; // seconds
+        public static final double SPIN_UP_DEAD_TIME = 0.1; // seconds
+        public static final double SPIN_UP_MIN_STEP = 500; // RPM; smaller changes aren't fitted
+        public static final int SPIN_UP_MIN_SAMPLES = 10;
+        public static final double SPIN_UP_FIT_WEIGHT = 0.3; // how much of each new fit to blend in
+        public static final double PRESPIN_MARGIN = 0.25; // seconds; start pre-spinning this much early
     }
 
     public class Indexer {
@@ -255,6 +287,10 @@ public class Constants {
     public class Auto {
         public static final long AUTO_SHOOT_DELAY = 1500;
         public static final long AUTO_SHOOT_RUNON = 4000;
+        // Allowances for the steps AutoRoutine can't model when estimating a routine's length
+        public static final double ZERO_SECONDS = 0.5;
+        public static final double ALIGN_SECONDS = 0.5;
+        public static final double BALL_SECONDS = 0.4; // feeding and recovery per ball once the flywheel is at speed
 
         public class Drive {
             public static final double SPEED = 1.0;
@@ -267,8 +303,20 @@ public class Constants {
         }
     }
 
-    public class AutoDrivePath {
+    public static class AutoDrivePath {
         public static final double K_TURN = 0.1;
+        public static final String PATHWEAVER_DIRECTORY = "output";
+        public static final String PATHWEAVER_EXTENSION = ".wpilib.json";
+        public static final String PATHFINDER_DIRECTORY = "paths";
+        public static final String PATHFINDER_EXTENSION = ".pf1.csv";
+        // Paths the autos use, reported if they don't preload
+        public static final String[] REQUIRED_PATHS = { "StartingToGenerator", "HalfTrench", "TrenchBalls", "Snipe", "SnipeToShoot", "ShootToGenerator" };
+        public static final String COMPILED_DIRECTORY = "trajectories"; // written by the compileTrajectories gradle task
+        public static final String COMPILED_PATHWEAVER_EXTENSION = ".wpilib.bin";
+        public static final String COMPILED_PATHFINDER_EXTENSION = ".pf1.bin";
+        public static final int COMPILED_MAGIC = 0x5452414A; // "TRAJ"
+        public static final int NOTIFIER_PRIORITY = 40; // real-time priority for the follower's notifier thread
+        public static final double DEADLINE_FACTOR = 1.5; // a callback later than this many dt counts as missed
     }
     public class DriveStraight {
         public static final double kP = 0.1;
@@ -278,6 +326,101 @@ public class Constants {
         public static final double kI_ANGLE = 0.000;
         public static final double kD_ANGLE = 0.01;
         public static final double ANGLE_TOLERANCE = 0.25;
+        public static final double MAX_HOLD_ROTATION = 0.15; // most the heading hold may turn
+    }
+
+    public static class CurrentLimiter {
+        public static final long PDP_CACHE_PERIOD = 40; // ms between PDP current reads
+        public static final double TOTAL_CURRENT_BUDGET = 300; // amps the battery can deliver before sagging too far
+        public static final double WARN_VOLTAGE = 8.0; // start scaling drive output below this
+        public static final double MIN_VOLTAGE = 7.0; // drive is at MIN_SCALE here, the rio browns out at 6.8
+        public static final double MIN_SCALE = 0.3;
+        public static final double RECOVERY_RATE = 0.05; // scale regained per cycle once we're back under the limits
+        public static final double TRACTION_CURRENT_LOW_GEAR = 45; // amps per motor where the wheels start to slip
+        public static final double TRACTION_CURRENT_HIGH_GEAR = 70;
+        public static final double SHOOTER_RESERVE = 100; // amps kept for the flywheel while shooting
+        public static final double TURRET_RESERVE = 20;
+    }
+
+    public static class TurretTargeting {
+        public static final int HISTORY_SIZE = 50; // loops of turret angle and yaw kept, a second at 20ms
+        public static final int FILTER_SIZE = 5; // median of this many compensated setpoints
+        public static final double SETTLE_STEP = 2.0; // degrees of setpoint change that starts a settling measurement
+        public static final double SETTLE_TIMEOUT = 2.0; // seconds before giving up on a settling measurement
+    }
+
+    public static class ShotTable {
+        public static final String DEPLOY_FILE = "shots.csv";
+        public static final String TUNED_FILE = "/U/shots.csv"; // dashboard edits are saved here and loaded first
+        public static final double DEFAULT_TIME_OF_FLIGHT = 0.5; // seconds, if there's no table at all
+    }
+
+    public static class ShotSolver {
+        public static final int MAX_ITERATIONS = 4;
+        public static final double CONVERGENCE = 0.001; // seconds of time of flight change to stop iterating
+        public static final double MIN_SPEED = 0.1; // meters per second, slower than this is treated as standing still
+    }
+
+    public static class FireControl {
+        public static final double TURRET_SETTLED_VELOCITY = 5; // deg/s
+        public static final double HOOD_TOLERANCE = 0.5; // degrees
+        public static final double VISION_MAX_AGE = 0.1; // seconds since the limelight last published
+        public static final double MIN_FEED_SPEED = 0.3;
+        public static final double METER_DOWN = 0.85; // feed speed factor after a ball released below tolerance
+        public static final double METER_UP = 0.02; // feed speed added after a clean release
+        public static final double VOLLEY_GAP = 2; // seconds; longer between balls starts a new volley
+    }
+
+    public static class BallCounter {
+        public static final int CAPACITY = 5;
+        public static final int PRELOADED = 3;
+        public static final double DEBOUNCE = 0.05; // seconds; an arrival this soon after a departure is a bounce
+        public static final double JAM_TIME = 1.0; // seconds a ball can sit on the entry sensor while advancing
+    }
+
+    public static class ShotRecorder {
+        public static final String LOG_FILE = "/U/shotlog.csv";
+        public static final double OUTCOME_WINDOW = 5; // seconds after a volley's last ball to tag it
+    }
+
+    public static class ShotDetector {
+        public static final double SAMPLE_PERIOD = 0.005; // seconds
+        public static final double DIP_THRESHOLD = 150; // RPM below target that starts a shot
+        public static final double REBOUND = 100; // RPM of recovery before a further fall counts as another ball
+        public static final double MAX_DIP_TIME = 1.0; // seconds, longer dips aren't shots
+        public static final int VELOCITY_WINDOW = 4; // samples averaged by the Talon; the default 64 smears the dip out
+        public static final int SENSOR_PERIOD = 5; // ms
+    }
+
+    public static class PowerManager {
+        public static final double BATTERY_RESISTANCE = 0.02; // ohms, battery plus main wiring
+        public static final double BASE_CURRENT = 5; // amps for the rio, radio, PCM and anything not registered
+        public static final double SHED_VOLTAGE = 9.0; // shed loads if predicted voltage is under this
+        public static final double RESTORE_VOLTAGE = 10.0; // restore a load if the voltage with it stays over this
+        public static final long MIN_SHED_TIME = 1000; // ms after the last shed before restoring anything
+        public static final double AGITATOR_CURRENT = 15; // amps, the VictorSPX can't measure it
+        public static final double NEO_STALL_CURRENT = 105; // amps at 12V
+        public static final double FALCON_STALL_CURRENT = 257; // amps at 12V
+        // Loads whose frames are slowed down are estimated from their commanded output: amps at full output
+        public static final double INTAKE_CURRENT = 30;
+        public static final double ELEVATOR_CURRENT = 40;
+        public static final double WINCH_CURRENT = 60;
+        public static final double AGITATOR_SHED_FACTOR = 0.5; // agitator speed while shed
+    }
+
+    public static class CAN {
+        public static final double BITRATE = 1000000; // bits per second
+        public static final double BITS_PER_FRAME = 130; // 29-bit id, 8 data bytes, worst case bit stuffing
+        public static final double UTILIZATION_BUDGET = 0.6;
+        public static final int CTRE_MAX_PERIOD = 255; // ms
+        public static final int SPARK_MAX_PERIOD = 500; // ms
+        public static final int CTRE_CONTROL_PERIOD = 10; // ms
+        public static final int SPARK_CONTROL_PERIOD = 20; // ms
+        public static final int CONFIG_TIMEOUT = 30; // ms
+        public static final int CONFIG_RETRIES = 3; // for ConfigQueue
+        public static final double CONFIG_VERIFY_TOLERANCE = 0.001; // relative; gains are stored as floats
+        public static final long SPARK_KEEP_ALIVE = 100; // ms, resend an unchanged SparkMax setpoint this often
+        public static final long CTRE_KEEP_ALIVE = 0; // Phoenix resends control frames itself
     }
 
     public class Lights {
@@ -3,6 +3,8 @@ package org.frc5687.infiniterecharge.robot;
 import com.kauailabs.navx.frc.AHRS;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.Joystick;
+import edu.wpi.first.wpilibj.util.Units;
+import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.button.Button;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
@@ -95,6 +97,9 @@ public class OI extends OutliersProxy {
 
         _operatorStartButton = new JoystickButton(_operatorGamepad, Gamepad.Buttons.START.getNumber());
         _operatorEndButton = new JoystickButton(_operatorGamepad, Gamepad.Buttons.BACK.getNumber());
+
+        _driverStartButton = new JoystickButton(_driverGamepad, Gamepad.Buttons.START.getNumber());
+        _driverEndButton = new JoystickButton(_driverGamepad, Gamepad.Buttons.BACK.getNumber());
         
 
         _operatorLeftYAxisDownButton = new AxisButton(_operatorGamepad,Gamepad.Axes.LEFT_Y.getNumber(), -.5);
@@ -102,13 +107,13 @@ public class OI extends OutliersProxy {
 
     }
 
-    public void initializeButtons(Shifter shifter, DriveTrain driveTrain, Turret turret, Limelight limelight, PoseTracker poseTracker, Intake intake, Shooter shooter, Indexer indexer, Spinner spinner, Climber climber, Hood hood, Skywalker skywalker, Lights lights, AHRS imu){
+    public void initializeButtons(Shifter shifter, DriveTrain driveTrain, Turret turret, Limelight limelight, PoseTracker poseTracker, Intake intake, Shooter shooter, Indexer indexer, Spinner spinner, Climber climber, Hood hood, Skywalker skywalker, Lights lights, AHRS imu, FireControl fireControl){
         _operatorLeftXAxisLeft.whileHeld(new AutoTarget(turret, shooter, hood, limelight, driveTrain,intake, poseTracker, lights,this,3200, 52, true));
         _operatorLeftXAxisRight.whileHeld(new AutoTarget(turret, shooter, hood, limelight, driveTrain,intake, poseTracker, lights,this,5000, 69.8, true));
         _operatorLeftBumper.whileHeld(new AutoTarget(turret, shooter,hood, limelight, driveTrain,intake, poseTracker, lights, this, 5300, 69.8, true));
 
-        _operatorRightTrigger.whileHeld(new Shoot(shooter, indexer, turret, this));
-        _driverRightTrigger.whileHeld(new Shoot(shooter, indexer, turret, this));
+        _operatorRightTrigger.whileHeld(new Shoot(shooter, indexer, fireControl, this));
+        _driverRightTrigger.whileHeld(new Shoot(shooter, indexer, fireControl, this));
 
         _operatorStartButton.whileHeld(new SequentialCommandGroup(new ZeroHoodAndTurret(hood, turret), new ExtendElevator(climber)));
 //        _operatorStartButton.whileHeld(new ExtendElevator(climber));
@@ -120,10 +125,15 @@ public class OI extends OutliersProxy {
 
         _driverYButton.whileHeld(new ReverseAgitator(indexer));
         _driverAButton.whenHeld(new SetPose(driveTrain, Constants.AutoPositions.LOADING_STATION_POSE));
+        DriveToPose toTrenchEdge = new DriveToPose(driveTrain, "TRENCH_EDGE", Constants.AutoPositions.TRENCH_EDGE, false);
+        double trenchEdgeDistance = Units.metersToInches(Constants.AutoPositions.TRENCH_EDGE.getTranslation().getDistance(Constants.AutoPositions.TARGET_POSE.getTranslation()));
+        _driverXButton.whileHeld(new ParallelCommandGroup(
+                toTrenchEdge,
+                new PreSpinShooter(shooter, () -> ShotTable.getInstance().getRPM(trenchEdgeDistance), toTrenchEdge::getTimeRemaining)));
 
         _operatorAButton.whenPressed(new ZeroHoodAndTurret(hood, turret));
         _operatorYButton.whileHeld(new AutoTarget(turret, shooter,hood,limelight,driveTrain,intake,poseTracker,lights,this, 0,20,false));
-        _operatorLeftTrigger.whileHeld(new AutoIntake(intake, lights, false));
+        _operatorLeftTrigger.whileHeld(new AutoIntake(intake, indexer, lights, false));
 
         _driverBButton.whileHeld(new AutoSpinToColor(spinner, this, skywalker));
         _operatorBButton.whileHeld(new AutoSpinRotations(spinner, this, skywalker));
@@ -264,6 +274,14 @@ public class OI extends OutliersProxy {
     }
 
 
+    public boolean isShotMadePressed() {
+        return _driverStartButton.get();
+    }
+
+    public boolean isShotMissedPressed() {
+        return _driverEndButton.get();
+    }
+
     public boolean isCreepPressed() {
         return  _driverRightStickButton.get();
     }
@@ -60,6 +60,9 @@ public class Robot extends OutliersRobot implements ILoggingSource{
         _robotContainer = new RobotContainer(this, _identityMode);
         _robotContainer.init();
 
+        // Load the auto trajectories in the background so autonomousInit doesn't have to.
+        TrajectoryRegistry.getInstance().start();
+
         // Periodically flushes metrics (might be good to configure enable/disable via USB config file)
         new Notifier(MetricTracker::flushAll).startPeriodic(Constants.METRIC_FLUSH_PERIOD);
         _robotContainer.zeroSensors();
@@ -149,6 +152,8 @@ public class Robot extends OutliersRobot implements ILoggingSource{
         RioLogger.getInstance().forceSync();
         RioLogger.getInstance().close();
         _robotContainer.disabledInit();
+        // Picks up anything that failed to load (e.g. a fresh deploy of paths) before the next auto.
+        TrajectoryRegistry.getInstance().start();
 //        MetricTracker.flushAll();
     }
 
@@ -5,9 +5,7 @@ import edu.wpi.first.wpilibj.SPI;
 import edu.wpi.first.wpilibj.trajectory.Trajectory;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
-import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import org.frc5687.infiniterecharge.robot.commands.*;
-import org.frc5687.infiniterecharge.robot.commands.drive.EightBallAuto;
 import org.frc5687.infiniterecharge.robot.subsystems.*;
 import org.frc5687.infiniterecharge.robot.util.*;
 import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
@@ -39,6 +37,8 @@ public class RobotContainer extends OutliersContainer implements IPoseTrackable
     private PoseTracker _poseTracker;
 
     private Lights _lights;
+    private ShotRecorder _shotRecorder;
+    private FireControl _fireControl;
 
     public RobotContainer(Robot robot, IdentityMode identityMode) {
         super(identityMode);
@@ -57,11 +57,13 @@ public class RobotContainer extends OutliersContainer implements IPoseTrackable
         _driveLimelight = new Limelight("limelight-drive");
 
         _limelight.setPipeline(Limelight.Pipeline.Wide);
+        ShotTable.getInstance();
 
 
         // Then subsystems....
         if (Robot._identityMode != IdentityMode.programming) {
             _pdp = new PDP();
+            PowerManager.getInstance().setPDP(_pdp);
             _shifter = new Shifter(this);
             _intake = new Intake(this, _oi);
             _driveTrain = new DriveTrain(this, _oi, _imu, _shifter, _driveLimelight);
@@ -72,27 +74,37 @@ public class RobotContainer extends OutliersContainer implements IPoseTrackable
             _shooter = new Shooter(this, _oi, _driveTrain);
             _indexer = new Indexer(this);
             _hood = new Hood(this,_limelight, _oi);
-
+            _shotRecorder = new ShotRecorder(_shooter, _hood, _turret, _driveTrain, _oi);
+            _fireControl = new FireControl(_shooter, _turret, _hood, _indexer, _limelight);
+            _shooter.getShotDetector().addListener(shot -> _indexer.getBallCounter().onShot());
 
             _poseTracker = new PoseTracker(this);
 
             _lights = new Lights(this, _oi);
 
+            // The limiter needs the shooter, which is allocated after the drivetrain.
+            _driveTrain.setCurrentLimiter(new DriveCurrentLimiter(_pdp, _driveTrain, _shooter, _turret));
+
+            // Every controller has declared its status frames by now, so fit them to the bus budget...
+            StatusFrameManager.getInstance().apply();
+
             // Must initialize buttons AFTER subsystems are allocated...
 
-            _oi.initializeButtons(_shifter, _driveTrain, _turret, _limelight, _poseTracker, _intake, _shooter, _indexer, _spinner, _climber, _hood, _skywalker, _lights, _imu);
+            _oi.initializeButtons(_shifter, _driveTrain, _turret, _limelight, _poseTracker, _intake, _shooter, _indexer, _spinner, _climber, _hood, _skywalker, _lights, _imu, _fireControl);
 
             // Initialize the other stuff
             _driveTrain.enableBrakeMode();
+            _shifter.setAutShiftEnabled(Constants.Shifter.AUTO_SHIFT_ENABLED);
 //            _driveTrain.resetOdometry(Constants.AutoPositions.EIGHT_BALL_STARING);
             _driveTrain.resetOdometry(Constants.AutoPositions.TRENCH_STARTING);
 
             // Now setup the default commands:
             setDefaultCommand(_hood, new DriveHood(_hood, _oi));
+            setDefaultCommand(_shifter, new AutoShift(_shifter, _driveTrain, _oi));
             setDefaultCommand(_driveTrain, new Drive(_driveTrain, _oi, _intake,_climber, _driveLimelight, _poseTracker, _imu));
             setDefaultCommand(_climber, new IdleClimber(_climber));
              setDefaultCommand(_skywalker, new DriveSkywalker(_skywalker, _spinner, _oi));
-            setDefaultCommand(_intake, new IntakeSpin(_intake, _oi));
+            setDefaultCommand(_intake, new IntakeSpin(_intake, _indexer, _oi));
             setDefaultCommand(_indexer, new IdleIndexer(_indexer, _intake, _lights));
             setDefaultCommand(_shooter, new DriveShooter(_shooter, _oi));
 //            setDefaultCommand(_turret, new AutoTurretTracking(_turret, _driveTrain, _limelight, _oi,  _poseTracker));
@@ -120,6 +132,10 @@ public class RobotContainer extends OutliersContainer implements IPoseTrackable
 
     public void periodic() {
         _oi.poll();
+        PowerManager.getInstance().update();
+        if (_shotRecorder != null) {
+            _shotRecorder.update();
+        }
         if (_oi.isKillAllPressed()) {
             new KillAll(_driveTrain, _shooter, _indexer, _intake, _turret, _hood).schedule();
             _indexer.stopAgitator();
@@ -145,6 +161,7 @@ public class RobotContainer extends OutliersContainer implements IPoseTrackable
     @Override
     public void autonomousInit() {
         _indexer.startAgitator();
+        _indexer.getBallCounter().setCount(Constants.BallCounter.PRELOADED);
     };
 
     @Override
@@ -153,33 +170,9 @@ public class RobotContainer extends OutliersContainer implements IPoseTrackable
     }
 
     public Command getAutonomousCommand() {
-
-
         AutoChooser.Mode autoMode = _autoChooser.getSelectedMode();
-
-        switch (autoMode) {
-            case ShootAndGo:
-                return wrapCommand(new AutoShootAndGo(_turret, _shooter, _hood, _limelight, _driveTrain, _intake, _poseTracker, _indexer, _lights));
-            case ShootAndNearTrench:
-                return wrapCommand(new AutoShootAndNearTrench(_turret, _shooter, _hood, _limelight, _driveTrain, _poseTracker, _indexer, _intake, _lights));
-            case ShootAndFarTrench:
-                return wrapCommand(new AutoShootAndFarTrench(_turret, _shooter, _hood, _limelight, _driveTrain, _poseTracker, _indexer, _intake, _lights));
-            case Generator2NearTrench:
-                return wrapCommand(new EightBallAuto(_driveTrain, _turret, _shooter,_hood,_intake, _imu, _indexer,_lights, _limelight, _poseTracker));
-            default:
-                return new SequentialCommandGroup(
-                        new ZeroSensors(_hood, _turret),
-                        new AutoShootAndGo(_turret, _shooter, _hood, _limelight, _driveTrain, _intake, _poseTracker, _indexer, _lights)
-//                        new EightBallAuto(_driveTrain, _turret, _shooter,_hood,_intake, _imu, _indexer,_lights, _limelight, _poseTracker)
-                );
-        }
-    }
-
-    private Command wrapCommand(Command command) {
-        return new SequentialCommandGroup(
-                new ZeroSensors(_hood, _turret),
-                command
-        );
+        return AutoRoutines.forMode(autoMode).build(new AutoRoutine.Context(_driveTrain, _imu, _turret, _shooter, _hood,
+                _intake, _indexer, _lights, _limelight, _poseTracker, _fireControl));
     }
 
     @Override
@@ -187,6 +180,18 @@ public class RobotContainer extends OutliersContainer implements IPoseTrackable
         super.updateDashboard();
         _oi.updateDashboard();
         _autoChooser.updateDashboard();
+        StatusFrameManager.getInstance().updateDashboard();
+        WriteCoalescer.updateDashboardAll();
+        PowerManager.getInstance().updateDashboard();
+        TrajectoryRegistry.getInstance().updateDashboard();
+        ShotTable.getInstance().updateDashboard();
+        ConfigQueue.getInstance().updateDashboard();
+        if (_shotRecorder != null) {
+            _shotRecorder.updateDashboard();
+        }
+        if (_fireControl != null) {
+            _fireControl.updateDashboard();
+        }
     }
 
 
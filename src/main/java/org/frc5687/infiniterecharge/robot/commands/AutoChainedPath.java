@@ -0,0 +1,137 @@
+package org.frc5687.infiniterecharge.robot.commands;
+
+import com.kauailabs.navx.frc.AHRS;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import jaci.pathfinder.Trajectory;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.util.PathStitcher;
+import org.frc5687.infiniterecharge.robot.util.RioLogger;
+import org.frc5687.infiniterecharge.robot.util.TrajectoryRegistry;
+
+/***
+ * Drives several paths in the same direction as one, without stopping between them (see PathStitcher).  Each leg
+ * can have a command that runs only while that leg is being driven, the way a ParallelDeadlineGroup around an
+ * AutoDrivePath would, e.g.
+ *
+ *   new AutoChainedPath(driveTrain, imu, false,
+ *       AutoChainedPath.leg("ShootToGenerator", new AutoIntake(intake, indexer, lights, false)),
+ *       AutoChainedPath.leg("HalfTrench"),
+ *       AutoChainedPath.leg("TrenchBalls", new AutoIntake(intake, indexer, lights, true)))
+ */
+public class AutoChainedPath extends AutoDrivePath {
+    private Leg[] _legs;
+    private int[] _starts;
+    private int _leg;
+    private boolean _running;
+
+    public AutoChainedPath(DriveTrain driveTrain, AHRS imu, boolean backwards, Leg... legs) {
+        this(driveTrain, imu, backwards, legs, stitch(legs));
+    }
+
+    private AutoChainedPath(DriveTrain driveTrain, AHRS imu, boolean backwards, Leg[] legs, PathStitcher.Stitched stitched) {
+        super(driveTrain, imu, name(legs),
+                stitched == null ? null : stitched.getLeft(),
+                stitched == null ? null : stitched.getRight(),
+                backwards);
+        _legs = legs;
+        _starts = stitched == null ? new int[legs.length] : stitched.getStarts();
+        for (Leg leg : legs) {
+            if (leg._command != null) {
+                addRequirements(leg._command.getRequirements().toArray(new Subsystem[0]));
+            }
+        }
+        if (stitched != null) {
+            info("Chained " + name(legs) + " into " + stitched.getLeft().length() + " segments");
+        }
+    }
+
+    public static Leg leg(String path) {
+        return new Leg(path, null);
+    }
+
+    public static Leg leg(String path, Command whileDriving) {
+        return new Leg(path, whileDriving);
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        _leg = -1;
+        _running = false;
+    }
+
+    @Override
+    public void execute() {
+        super.execute();
+        int segment = getSegment();
+        while (_leg < _legs.length - 1 && segment >= _starts[_leg + 1]) {
+            endLeg(true);
+            _leg++;
+            metric("Leg", _legs[_leg]._path);
+            Command command = _legs[_leg]._command;
+            if (command != null) {
+                command.initialize();
+                _running = true;
+            }
+        }
+        if (_running) {
+            Command command = _legs[_leg]._command;
+            command.execute();
+            if (command.isFinished()) {
+                command.end(false);
+                _running = false;
+            }
+        }
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        endLeg(interrupted);
+        super.end(interrupted);
+    }
+
+    private void endLeg(boolean interrupted) {
+        if (_running) {
+            _legs[_leg]._command.end(interrupted);
+            _running = false;
+        }
+    }
+
+    private static PathStitcher.Stitched stitch(Leg[] legs) {
+        try {
+            Trajectory[] lefts = new Trajectory[legs.length];
+            Trajectory[] rights = new Trajectory[legs.length];
+            for (int i = 0; i < legs.length; i++) {
+                // Same side naming as AutoDrivePath
+                lefts[i] = TrajectoryRegistry.getInstance().getPathfinder(legs[i]._path + ".right");
+                rights[i] = TrajectoryRegistry.getInstance().getPathfinder(legs[i]._path + ".left");
+            }
+            return PathStitcher.stitch(lefts, rights);
+        } catch (Exception e) {
+            RioLogger.error("AutoChainedPath", "Error chaining " + name(legs) + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String name(Leg[] legs) {
+        StringBuilder builder = new StringBuilder();
+        for (Leg leg : legs) {
+            if (builder.length() > 0) {
+                builder.append("+");
+            }
+            builder.append(leg._path);
+        }
+        return builder.toString();
+    }
+
+    public static class Leg {
+        private String _path;
+        private Command _command;
+
+        private Leg(String path, Command command) {
+            _path = path;
+            _command = command;
+        }
+    }
+}
@@ -2,52 +2,78 @@ package org.frc5687.infiniterecharge.robot.commands;
 
 import com.kauailabs.navx.frc.AHRS;
 import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Threads;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import jaci.pathfinder.Pathfinder;
-import jaci.pathfinder.PathfinderFRC;
 import jaci.pathfinder.Trajectory;
-import jaci.pathfinder.followers.DistanceFollower;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.util.TrajectoryRegistry;
 import java.io.IOException;
 
+/***
+ * Follows a pair of Pathfinder trajectories from a Notifier at the trajectory's dt.  Each callback samples the
+ * trajectory by the time actually elapsed since the path started (not by counting callbacks), so a late callback
+ * costs accuracy for one cycle rather than shifting the rest of the path.  The notifier thread runs at real-time
+ * priority; callback jitter, missed deadlines and tracking error are collected there and published from execute.
+ */
 public class AutoDrivePath extends OutliersCommand {
     private Trajectory _leftTrajectory;
     private Trajectory _rightTrajectory;
-    private DistanceFollower _leftFollower;
-    private DistanceFollower _rightFollower;
+    private Trajectory _leftFollowed;
+    private Trajectory _rightFollowed;
     private Notifier _pathNotifier;
 
+    private double kPfollow = 0.1;
+    private double kDfollow = 0.001;
+    private double kVfollow = 1 / Constants.DriveTrain.MAX_SPEED_IPS;
+    private double kAfollow = 0;
+
     private DriveTrain _driveTrain;
     private AHRS _imu;
 
     private double kPangle = .001;
     private double kIangle = .0001;
     private double kDangle = .001;
-    private int _index = 0;
+    private volatile int _index = 0;
     private int _trackingThreshold;
     private String _path;
     private State _state;
 
+    private double _dt;
+    private long _startMicros;
+    private long _lastMicros;
+    private double _leftLastError;
+    private double _rightLastError;
+    private boolean _prioritySet;
+    private volatile boolean _finished;
+
+    // Written by the notifier thread, read by execute
+    private volatile int _callbacks;
+    private volatile int _missedDeadlines;
+    private volatile int _skippedSegments;
+    private volatile double _maxJitter;
+    private volatile double _totalJitter;
+    private volatile double _maxTrackingError;
+    private volatile double _sumSquaredTrackingError;
+    private volatile double _maxHeadingError;
+    private volatile double _lastTrackingError;
 
     private boolean _backwards;
     private int _direction;
 
     public AutoDrivePath(DriveTrain driveTrain, AHRS imu, String path, int trackingSegments, boolean backwards) {
-        addRequirements(driveTrain);
-        _driveTrain = driveTrain;
-        _imu = imu;
-
-        _backwards = backwards;
-        _direction = backwards ? -1 : 1;
-
-        _path = path;
+        this(driveTrain, imu, path, null, null, backwards);
         try {
             info("Loading trajectories for " + path);
-            _leftTrajectory = PathfinderFRC.getTrajectory(_path + ".right");
-            _rightTrajectory = PathfinderFRC.getTrajectory(_path + ".left");
+            long start = System.nanoTime();
+            _leftTrajectory = TrajectoryRegistry.getInstance().getPathfinder(_path + ".right");
+            _rightTrajectory = TrajectoryRegistry.getInstance().getPathfinder(_path + ".left");
+            info("Loaded " + path + " in " + (System.nanoTime() - start) / 1000 + "us");
         } catch (Exception e) {
             error("Error Generating Paths :" + e.getMessage());
+            return;
         }
         info("Left has " + _leftTrajectory.length() + " segments.");
         info("Right has " + _rightTrajectory.length() + " segments.");
@@ -55,46 +81,134 @@ public class AutoDrivePath extends OutliersCommand {
         // logMetrics("Segment", "State", "LeftDistance", "RightDistance", "LeftSpeed","RightSpeed","Yaw","Heading","VisionHeading","DesiredHeading","HeadingDifference", "Turn","LeftOutput","RightOutput");
     }
 
+    /**
+     * Follows already built trajectories (e.g. stitched by AutoChainedPath).  Left and right are as followed forwards.
+     */
+    protected AutoDrivePath(DriveTrain driveTrain, AHRS imu, String name, Trajectory left, Trajectory right, boolean backwards) {
+        addRequirements(driveTrain);
+        _driveTrain = driveTrain;
+        _imu = imu;
+
+        _backwards = backwards;
+        _direction = backwards ? -1 : 1;
+
+        _path = name;
+        _leftTrajectory = left;
+        _rightTrajectory = right;
+        _trackingThreshold = left == null ? 0 : left.length();
+    }
+
     @Override
     public void initialize() {
         SmartDashboard.putBoolean("MetricTracker/AutoDrivePath", true);
         super.initialize();
+        if (_leftTrajectory == null || _rightTrajectory == null) {
+            error("No trajectories for " + _path + ", skipping.");
+            _finished = true;
+            _callbacks = 0;
+            return;
+        }
         _driveTrain.resetDriveEncoders();
-        info("Allocating followers");
 
-        _leftFollower = new DistanceFollower(_backwards ? _rightTrajectory : _leftTrajectory);
-        _rightFollower = new DistanceFollower(_backwards ? _leftTrajectory : _rightTrajectory);
+        _leftFollowed = _backwards ? _rightTrajectory : _leftTrajectory;
+        _rightFollowed = _backwards ? _leftTrajectory : _rightTrajectory;
 
         _state = State.normal;
-
-        error("COnfiguring follower PID");
-        _leftFollower.configurePIDVA(0.1, 0.0, 0.001, 1 / Constants.DriveTrain.MAX_SPEED_IPS, 0);
-        _rightFollower.configurePIDVA(0.1, 0.0, 0.001, 1 / Constants.DriveTrain.MAX_SPEED_IPS, 0);
+        _dt = _leftFollowed.get(0).dt;
+        _index = 0;
+        _leftLastError = 0;
+        _rightLastError = 0;
+        _prioritySet = false;
+        _finished = false;
+        _callbacks = 0;
+        _missedDeadlines = 0;
+        _skippedSegments = 0;
+        _maxJitter = 0;
+        _totalJitter = 0;
+        _maxTrackingError = 0;
+        _sumSquaredTrackingError = 0;
+        _maxHeadingError = 0;
+        _lastTrackingError = 0;
 
         _pathNotifier = new Notifier(this::run);
-        _pathNotifier.startPeriodic(_leftTrajectory.get(0).dt);
-        _index = 0;
+        _startMicros = RobotController.getFPGATime();
+        _lastMicros = _startMicros;
+        _pathNotifier.startPeriodic(_dt);
     }
 
     @Override
     public void execute() {
+        metric("Segment", _index);
+        metric("State", _state.name());
+        metric("Callbacks", _callbacks);
+        metric("MissedDeadlines", _missedDeadlines);
+        metric("SkippedSegments", _skippedSegments);
+        metric("MaxJitterMillis", _maxJitter);
+        metric("TrackingError", _lastTrackingError);
     }
+
     public void run() {
-        _index++;
-        metric("Segment", _index);
-        metric("State",_state.name());
-        double leftDistance = _driveTrain.getLeftDistance() * _direction;
-        double rightDistance = _driveTrain.getRightDistance() * _direction;
-        double leftSpeed = _leftFollower.calculate(leftDistance) * _direction;
-        double rightSpeed = _rightFollower.calculate(rightDistance) * _direction;
+        if (_finished) {
+            return;
+        }
+        if (!_prioritySet) {
+            _prioritySet = true;
+            if (!Threads.setCurrentThreadPriority(true, Constants.AutoDrivePath.NOTIFIER_PRIORITY)) {
+                warn("Unable to raise path follower thread priority");
+            }
+        }
+
+        long now = RobotController.getFPGATime();
+        double period = (now - _lastMicros) / 1000000.0;
+        _lastMicros = now;
+        _callbacks++;
+        double jitter = Math.abs(period - _dt) * 1000;
+        _totalJitter += jitter;
+        _maxJitter = Math.max(_maxJitter, jitter);
+        if (period > _dt * Constants.AutoDrivePath.DEADLINE_FACTOR) {
+            _missedDeadlines++;
+        }
+
+        double elapsed = (now - _startMicros) / 1000000.0;
+        int index = (int) (elapsed / _dt);
+        if (index >= _leftFollowed.length()) {
+            _finished = true;
+            _driveTrain.setPower(0, 0, true);
+            return;
+        }
+        if (index > _index + 1) {
+            _skippedSegments += index - _index - 1;
+        }
+        _index = index;
+        // Time past the start of this segment, so we aim for where the path actually is now
+        double offset = elapsed - index * _dt;
+        if (period <= 0) {
+            period = _dt;
+        }
+
+        Trajectory.Segment leftSegment = _leftFollowed.get(index);
+        Trajectory.Segment rightSegment = _rightFollowed.get(index);
+        double leftError = leftSegment.position + leftSegment.velocity * offset - _driveTrain.getLeftDistance() * _direction;
+        double rightError = rightSegment.position + rightSegment.velocity * offset - _driveTrain.getRightDistance() * _direction;
+        double leftSpeed = follow(leftSegment, leftError, _leftLastError, period) * _direction;
+        double rightSpeed = follow(rightSegment, rightError, _rightLastError, period) * _direction;
+        _leftLastError = leftError;
+        _rightLastError = rightError;
+
         double yaw = _imu.getYaw();
         double heading = _backwards ? Pathfinder.boundHalfDegrees(yaw + 180) : yaw;
         //double heading = yaw;
 
-        double desiredHeading = Pathfinder.boundHalfDegrees(Pathfinder.r2d(_leftFollower.getHeading()));
+        double desiredHeading = Pathfinder.boundHalfDegrees(Pathfinder.r2d(leftSegment.heading));
         double headingDifference = Pathfinder.boundHalfDegrees(desiredHeading - heading);
         double turn =  Constants.AutoDrivePath.K_TURN * (1.0/80.0) * headingDifference;
 
+        double trackingError = Math.max(Math.abs(leftError), Math.abs(rightError));
+        _lastTrackingError = trackingError;
+        _maxTrackingError = Math.max(_maxTrackingError, trackingError);
+        _sumSquaredTrackingError += trackingError * trackingError;
+        _maxHeadingError = Math.max(_maxHeadingError, Math.abs(headingDifference));
+
 /*        metric("LeftDistance",leftDistance);
         metric("RightDistance", rightDistance);
         metric("LeftSpeed",leftSpeed);
@@ -110,9 +224,40 @@ public class AutoDrivePath extends OutliersCommand {
         _driveTrain.setPower(leftSpeed + turn, rightSpeed - turn, true);
     }
 
+    /**
+     * @return the trajectory segment currently being followed
+     */
+    protected int getSegment() {
+        return _index;
+    }
+
+    /**
+     * @return seconds until the path ends (the whole path if it hasn't started), e.g. for PreSpinShooter
+     */
+    public double getTimeRemaining() {
+        if (_leftTrajectory == null) {
+            return 0;
+        }
+        double total = _leftTrajectory.length() * _leftTrajectory.get(0).dt;
+        if (_leftFollowed == null) {
+            return total;
+        }
+        if (_finished) {
+            return 0;
+        }
+        return Math.max(0, total - (RobotController.getFPGATime() - _startMicros) / 1000000.0);
+    }
+
+    /**
+     * Pathfinder's DistanceFollower law, including its quirk of taking the segment velocity off the D term.
+     */
+    private double follow(Trajectory.Segment segment, double error, double lastError, double period) {
+        return kPfollow * error + kDfollow * ((error - lastError) / period - segment.velocity) + kVfollow * segment.velocity + kAfollow * segment.acceleration;
+    }
+
     @Override
     public boolean isFinished() {
-        if (_leftFollower.isFinished() || _rightFollower.isFinished()) {
+        if (_finished) {
             info("AutoDrivePath finished");
             return true;
         }
@@ -122,10 +267,26 @@ public class AutoDrivePath extends OutliersCommand {
     @Override
     public void end(boolean interrupted) {
         super.end(interrupted);
-        _leftFollower.reset();
-        _rightFollower.reset();
-        if (_pathNotifier != null) { _pathNotifier.stop(); }
-        info("Ending AutoDrivePath");
+        _finished = true;
+        if (_pathNotifier != null) {
+            _pathNotifier.stop();
+            _pathNotifier.close();
+            _pathNotifier = null;
+        }
+        int callbacks = Math.max(_callbacks, 1);
+        double rmsTrackingError = Math.sqrt(_sumSquaredTrackingError / callbacks);
+        metric("Run/Callbacks", _callbacks);
+        metric("Run/MissedDeadlines", _missedDeadlines);
+        metric("Run/SkippedSegments", _skippedSegments);
+        metric("Run/MeanJitterMillis", _totalJitter / callbacks);
+        metric("Run/MaxJitterMillis", _maxJitter);
+        metric("Run/MaxTrackingError", _maxTrackingError);
+        metric("Run/RMSTrackingError", rmsTrackingError);
+        metric("Run/MaxHeadingError", _maxHeadingError);
+        info("Ending AutoDrivePath " + _path + ": " + _callbacks + " callbacks, " + _missedDeadlines + " missed, "
+                + _skippedSegments + " segments skipped, jitter max " + Math.round(_maxJitter * 10) / 10.0 + "ms, tracking error max "
+                + Math.round(_maxTrackingError * 10) / 10.0 + "in rms " + Math.round(rmsTrackingError * 10) / 10.0 + "in, heading error max "
+                + Math.round(_maxHeadingError * 10) / 10.0 + "deg");
     }
 
     private enum State {
@@ -1,17 +1,24 @@
 package org.frc5687.infiniterecharge.robot.commands;
 
 import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.Indexer;
 import org.frc5687.infiniterecharge.robot.subsystems.Intake;
 import org.frc5687.infiniterecharge.robot.subsystems.Lights;
 import org.frc5687.infiniterecharge.robot.subsystems.Spinner;
 
+/***
+ * Lowers the intake and runs it, stopping the rollers (but staying down) while the hopper is full so we don't pull
+ * in a sixth ball and jam.
+ */
 public class AutoIntake extends OutliersCommand {
     private Intake _intake;
+    private Indexer _indexer;
     private Lights _lights;
     private boolean _keepDown;
 
-    public AutoIntake(Intake intake, Lights lights, boolean keepDown) {
+    public AutoIntake(Intake intake, Indexer indexer, Lights lights, boolean keepDown) {
         _intake = intake;
+        _indexer = indexer;
         _lights = lights;
         _keepDown = keepDown;
         addRequirements(_intake);
@@ -26,7 +33,9 @@ public class AutoIntake extends OutliersCommand {
 
     @Override
     public void execute() {
-        _intake.setSpeed(Constants.Intake.INTAKE_SPEED);
+        boolean full = _indexer.getBallCounter().isFull();
+        metric("HopperFull", full);
+        _intake.setSpeed(full ? 0 : Constants.Intake.INTAKE_SPEED);
     }
 
     @Override
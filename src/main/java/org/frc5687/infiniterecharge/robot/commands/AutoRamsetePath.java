@@ -0,0 +1,65 @@
+package org.frc5687.infiniterecharge.robot.commands;
+
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.util.RamseteFollower;
+import org.frc5687.infiniterecharge.robot.util.TrajectoryLoader;
+import org.frc5687.infiniterecharge.robot.util.TrajectoryRegistry;
+
+/***
+ * Follows a PathWeaver trajectory with a Ramsete controller (see RamseteFollower).  PathWeaver paths are relative:
+ * the trajectory is moved to start wherever the robot is when the command starts.
+ */
+public class AutoRamsetePath extends OutliersCommand {
+    private DriveTrain _driveTrain;
+    private String _path;
+
+    private Trajectory _source;
+    private RamseteFollower _follower;
+
+    public AutoRamsetePath(DriveTrain driveTrain, String path) {
+        addRequirements(driveTrain);
+        _driveTrain = driveTrain;
+        _path = path;
+        try {
+            info("Loading trajectory for " + path);
+            _source = TrajectoryRegistry.getInstance().getPathWeaver(path);
+            info(path + " has " + _source.getStates().size() + " states over " + _source.getTotalTimeSeconds() + "s.");
+        } catch (Exception e) {
+            error("Error loading trajectory " + path + ": " + e.getMessage());
+        }
+        _follower = new RamseteFollower(driveTrain);
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        if (_source == null) {
+            error("No trajectory for " + _path + ", skipping.");
+            return;
+        }
+        // Paths are relative: start the trajectory wherever the robot is now.
+        _follower.start(TrajectoryLoader.relativeTo(_source, _driveTrain.getPose()));
+    }
+
+    @Override
+    public void execute() {
+        super.execute();
+        _follower.update();
+        metric("Elapsed", _follower.getElapsed());
+        metric("TrackingError", _follower.getTrackingError());
+        metric("HeadingError", _follower.getHeadingError());
+    }
+
+    @Override
+    public boolean isFinished() {
+        return !_follower.isStarted() || _follower.isFinished();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        super.end(interrupted);
+        _follower.stop();
+        info("Ending AutoRamsetePath " + _path + (interrupted ? " (interrupted)" : ""));
+    }
+}
@@ -0,0 +1,415 @@
+package org.frc5687.infiniterecharge.robot.commands;
+
+import com.kauailabs.navx.frc.AHRS;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.*;
+import org.frc5687.infiniterecharge.robot.util.FireControl;
+import org.frc5687.infiniterecharge.robot.util.FlywheelModel;
+import org.frc5687.infiniterecharge.robot.util.Limelight;
+import org.frc5687.infiniterecharge.robot.util.PoseTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/***
+ * An autonomous routine as a list of steps.  The same steps build the commands the robot runs and the time estimate
+ * that ./gradlew checkAuto holds against the 15 second auto period, so the two can't drift apart.  The routines
+ * themselves are in AutoRoutines.
+ *
+ * Steps that wait on sensors (zeroing, aligning) can't be modelled and get a fixed allowance from Constants.Auto.
+ * AutoShoot is its predicted spin-up (none if the step before pre-spun to the same RPM) plus BALL_SECONDS a ball, or
+ * AUTO_SHOOT_RUNON when no count is given.
+ */
+public class AutoRoutine {
+    private List<Step> _steps;
+
+    public AutoRoutine(Step... steps) {
+        _steps = Arrays.asList(steps);
+    }
+
+    /**
+     * @return this routine with the given steps run ahead of it
+     */
+    public AutoRoutine after(Step... first) {
+        List<Step> steps = new ArrayList<>(Arrays.asList(first));
+        steps.addAll(_steps);
+        return new AutoRoutine(steps.toArray(new Step[0]));
+    }
+
+    public Command build(Context context) {
+        SequentialCommandGroup group = new SequentialCommandGroup();
+        for (Step step : _steps) {
+            group.addCommands(step.build(context));
+        }
+        return group;
+    }
+
+    /**
+     * @param paths how long each path takes, since the robot and the desktop load trajectories differently
+     * @return the estimated time of each step, in order
+     */
+    public List<Estimate> estimate(PathTimes paths) {
+        Estimator estimator = new Estimator(paths);
+        for (Step step : _steps) {
+            step.estimate(estimator);
+        }
+        return estimator._estimates;
+    }
+
+    public static Step zero() {
+        return new FixedStep("ZeroSensors", Constants.Auto.ZERO_SECONDS, context -> new ZeroSensors(context._hood, context._turret));
+    }
+
+    public static Step zeroHoodAndTurret() {
+        return new FixedStep("ZeroHoodAndTurret", Constants.Auto.ZERO_SECONDS, context -> new ZeroHoodAndTurret(context._hood, context._turret));
+    }
+
+    public static Step align() {
+        return new FixedStep("AutoAlign", Constants.Auto.ALIGN_SECONDS, context -> new AutoAlign(context._driveTrain, 0));
+    }
+
+    public static Step pause(long millis) {
+        return new FixedStep("AutoPause " + millis + "ms", millis / 1000.0, context -> new AutoPause(millis, context._driveTrain));
+    }
+
+    public static Step setPose(Pose2d pose) {
+        return new FixedStep("SetPose", 0, context -> new SetPose(context._driveTrain, pose));
+    }
+
+    public static Step turretSetpoint(double angle) {
+        return new FixedStep("AutoTurretSetpoint " + angle, 0, context -> new AutoTurretSetpoint(context._turret, angle));
+    }
+
+    /**
+     * AutoDrive, estimated as a trapezoid at the drivetrain's acceleration up to the given share of top speed.
+     */
+    public static DrivingStep drive(double distance, double speed) {
+        return new DrivingStep() {
+            @Override
+            Command buildDrive(Context context) {
+                return new AutoDrive(context._driveTrain, distance, speed);
+            }
+
+            @Override
+            String getLabel() {
+                return "AutoDrive " + distance + "in at " + speed;
+            }
+
+            @Override
+            double getSeconds(PathTimes paths) {
+                double acceleration = Constants.DriveTrain.MAX_ACCELERATION_IPSS;
+                double cruise = speed * Constants.DriveTrain.MAX_SPEED_IPS;
+                double rampDistance = cruise * cruise / acceleration;
+                return distance >= rampDistance
+                        ? 2 * cruise / acceleration + (distance - rampDistance) / cruise
+                        : 2 * Math.sqrt(distance / acceleration);
+            }
+        };
+    }
+
+    public static DrivingStep path(String name, boolean backwards) {
+        return new DrivingStep() {
+            @Override
+            Command buildDrive(Context context) {
+                return new AutoDrivePath(context._driveTrain, context._imu, name, 0, backwards);
+            }
+
+            @Override
+            String getLabel() {
+                return "AutoDrivePath " + name;
+            }
+
+            @Override
+            double getSeconds(PathTimes paths) {
+                return paths.getSeconds(name);
+            }
+        };
+    }
+
+    /**
+     * AutoChainedPath through the legs, in order.
+     */
+    public static DrivingStep chain(boolean backwards, Leg... legs) {
+        String[] names = new String[legs.length];
+        for (int i = 0; i < legs.length; i++) {
+            names[i] = legs[i]._path;
+        }
+        return new DrivingStep() {
+            @Override
+            Command buildDrive(Context context) {
+                AutoChainedPath.Leg[] chained = new AutoChainedPath.Leg[legs.length];
+                for (int i = 0; i < legs.length; i++) {
+                    chained[i] = legs[i]._keepIntakeDown == null
+                            ? AutoChainedPath.leg(legs[i]._path)
+                            : AutoChainedPath.leg(legs[i]._path, new AutoIntake(context._intake, context._indexer, context._lights, legs[i]._keepIntakeDown));
+                }
+                return new AutoChainedPath(context._driveTrain, context._imu, backwards, chained);
+            }
+
+            @Override
+            String getLabel() {
+                return "AutoChainedPath " + String.join("+", names);
+            }
+
+            @Override
+            double getSeconds(PathTimes paths) {
+                return paths.getSeconds(names);
+            }
+        };
+    }
+
+    public static Leg leg(String path) {
+        return new Leg(path, null);
+    }
+
+    /**
+     * A leg with the intake running while it's driven.
+     */
+    public static Leg leg(String path, boolean keepIntakeDown) {
+        return new Leg(path, keepIntakeDown);
+    }
+
+    /**
+     * AutoShoot alongside AutoTarget at a fixed RPM and hood angle.
+     *
+     * @param balls balls expected to be fired, or 0 to just run for AUTO_SHOOT_RUNON
+     */
+    public static ShootStep shoot(int balls, double rpm, double hoodAngle) {
+        return new ShootStep(balls, rpm, hoodAngle);
+    }
+
+    public abstract static class Step {
+        abstract Command build(Context context);
+
+        abstract void estimate(Estimator estimator);
+    }
+
+    private interface Builder {
+        Command build(Context context);
+    }
+
+    private static class FixedStep extends Step {
+        private String _label;
+        private double _seconds;
+        private Builder _builder;
+
+        private FixedStep(String label, double seconds, Builder builder) {
+            _label = label;
+            _seconds = seconds;
+            _builder = builder;
+        }
+
+        @Override
+        Command build(Context context) {
+            return _builder.build(context);
+        }
+
+        @Override
+        void estimate(Estimator estimator) {
+            estimator.add(_label, _seconds);
+        }
+    }
+
+    /***
+     * A drive, with the intake and pre-spin running until it (and anything added with then()) is done.
+     */
+    public abstract static class DrivingStep extends Step {
+        private Boolean _keepIntakeDown;
+        private double _preSpinRPM = 0;
+        private List<Step> _then = new ArrayList<>();
+
+        public DrivingStep withIntake(boolean keepDown) {
+            _keepIntakeDown = keepDown;
+            return this;
+        }
+
+        /**
+         * Spins the flywheel up to be at speed as the drive ends (only paths know how long they have left; any other
+         * drive starts spinning straight away).
+         */
+        public DrivingStep withPreSpin(double rpm) {
+            _preSpinRPM = rpm;
+            return this;
+        }
+
+        /**
+         * Steps to run after the drive, still inside its intake and pre-spin.
+         */
+        public DrivingStep then(Step... steps) {
+            _then.addAll(Arrays.asList(steps));
+            return this;
+        }
+
+        abstract Command buildDrive(Context context);
+
+        abstract String getLabel();
+
+        abstract double getSeconds(PathTimes paths);
+
+        @Override
+        Command build(Context context) {
+            Command drive = buildDrive(context);
+            Command deadline = drive;
+            if (!_then.isEmpty()) {
+                SequentialCommandGroup sequence = new SequentialCommandGroup(drive);
+                for (Step step : _then) {
+                    sequence.addCommands(step.build(context));
+                }
+                deadline = sequence;
+            }
+            if (_keepIntakeDown == null && _preSpinRPM == 0) {
+                return deadline;
+            }
+            ParallelDeadlineGroup group = new ParallelDeadlineGroup(deadline);
+            if (_keepIntakeDown != null) {
+                group.addCommands(new AutoIntake(context._intake, context._indexer, context._lights, _keepIntakeDown));
+            }
+            if (_preSpinRPM > 0) {
+                double rpm = _preSpinRPM;
+                DoubleSupplier timeRemaining = drive instanceof AutoDrivePath ? ((AutoDrivePath) drive)::getTimeRemaining : () -> 0;
+                group.addCommands(new PreSpinShooter(context._shooter, () -> rpm, timeRemaining));
+            }
+            return group;
+        }
+
+        @Override
+        void estimate(Estimator estimator) {
+            estimator.add(getLabel(), getSeconds(estimator._paths));
+            for (Step step : _then) {
+                step.estimate(estimator);
+            }
+            estimator._preSpunRPM = _preSpinRPM;
+        }
+    }
+
+    public static class ShootStep extends Step {
+        private int _balls;
+        private double _rpm;
+        private double _hoodAngle;
+        private boolean _align = false;
+
+        private ShootStep(int balls, double rpm, double hoodAngle) {
+            _balls = balls;
+            _rpm = rpm;
+            _hoodAngle = hoodAngle;
+        }
+
+        /**
+         * Keeps the drivetrain aligned while shooting.
+         */
+        public ShootStep withAlign() {
+            _align = true;
+            return this;
+        }
+
+        @Override
+        Command build(Context context) {
+            ParallelDeadlineGroup group = new ParallelDeadlineGroup(new AutoShoot(context._shooter, context._indexer, context._fireControl, null, _balls));
+            if (_align) {
+                group.addCommands(new AutoAlign(context._driveTrain, 0));
+            }
+            group.addCommands(new AutoTarget(context._turret, context._shooter, context._hood, context._limelight, context._driveTrain,
+                    context._intake, context._poseTracker, context._lights, null, _rpm, _hoodAngle, true));
+            return group;
+        }
+
+        @Override
+        void estimate(Estimator estimator) {
+            double spinUp = estimator._preSpunRPM == _rpm
+                    ? 0
+                    : Math.min(estimator._flywheel.predict(0, _rpm), Constants.Auto.AUTO_SHOOT_DELAY / 1000.0);
+            double runOn = Constants.Auto.AUTO_SHOOT_RUNON / 1000.0;
+            double feeding = _balls > 0 ? Math.min(_balls * Constants.Auto.BALL_SECONDS, runOn) : runOn;
+            estimator.add(String.format("AutoShoot %s at %.0f", _balls > 0 ? _balls + " balls" : "(no count)", _rpm), spinUp + feeding);
+            estimator._preSpunRPM = 0;
+        }
+    }
+
+    public static class Leg {
+        private String _path;
+        private Boolean _keepIntakeDown;
+
+        private Leg(String path, Boolean keepIntakeDown) {
+            _path = path;
+            _keepIntakeDown = keepIntakeDown;
+        }
+    }
+
+    /**
+     * What the commands run on.
+     */
+    public static class Context {
+        private DriveTrain _driveTrain;
+        private AHRS _imu;
+        private Turret _turret;
+        private Shooter _shooter;
+        private Hood _hood;
+        private Intake _intake;
+        private Indexer _indexer;
+        private Lights _lights;
+        private Limelight _limelight;
+        private PoseTracker _poseTracker;
+        private FireControl _fireControl;
+
+        public Context(DriveTrain driveTrain, AHRS imu, Turret turret, Shooter shooter, Hood hood, Intake intake, Indexer indexer,
+                       Lights lights, Limelight limelight, PoseTracker poseTracker, FireControl fireControl) {
+            _driveTrain = driveTrain;
+            _imu = imu;
+            _turret = turret;
+            _shooter = shooter;
+            _hood = hood;
+            _intake = intake;
+            _indexer = indexer;
+            _lights = lights;
+            _limelight = limelight;
+            _poseTracker = poseTracker;
+            _fireControl = fireControl;
+        }
+    }
+
+    public interface PathTimes {
+        /**
+         * @return seconds to drive the paths stitched together, one after another
+         */
+        double getSeconds(String... paths);
+    }
+
+    public static class Estimate {
+        private String _label;
+        private double _seconds;
+
+        private Estimate(String label, double seconds) {
+            _label = label;
+            _seconds = seconds;
+        }
+
+        public String getLabel() {
+            return _label;
+        }
+
+        public double getSeconds() {
+            return _seconds;
+        }
+    }
+
+    static class Estimator {
+        private PathTimes _paths;
+        private FlywheelModel _flywheel = new FlywheelModel();
+        private double _preSpunRPM = 0;
+        private List<Estimate> _estimates = new ArrayList<>();
+
+        private Estimator(PathTimes paths) {
+            _paths = paths;
+        }
+
+        private void add(String label, double seconds) {
+            _estimates.add(new Estimate(label, seconds));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.frc5687.infiniterecharge.robot.commands;
+
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.util.AutoChooser;
+
+import static org.frc5687.infiniterecharge.robot.commands.AutoRoutine.*;
+
+/***
+ * The autonomous routines, and which one each AutoChooser.Mode runs.  RobotContainer builds the selected one and
+ * ./gradlew checkAuto estimates all of them, from the same steps.
+ */
+public class AutoRoutines {
+
+    /**
+     * @return the routine to run for the mode, behind the ZeroSensors every mode starts with
+     */
+    public static AutoRoutine forMode(AutoChooser.Mode mode) {
+        AutoRoutine routine;
+        switch (mode) {
+            case ShootAndNearTrench:
+                routine = shootAndNearTrench();
+                break;
+            case ShootAndFarTrench:
+                routine = shootAndFarTrench();
+                break;
+            case Generator2NearTrench:
+                routine = eightBall();
+                break;
+            default:
+                routine = shootAndGo();
+                break;
+        }
+        return routine.after(zero());
+    }
+
+    public static AutoRoutine shootAndGo() {
+        return new AutoRoutine(
+                zero(),
+                shoot(3, 3250, 53),
+                drive(36, 1.0)
+        );
+    }
+
+    public static AutoRoutine shootAndNearTrench() {
+        return new AutoRoutine(
+                zero(),
+                shoot(3, 3500, 50),
+                drive(198, .8).withIntake(true),
+                shoot(3, 5000, 68.5)
+        );
+    }
+
+    public static AutoRoutine shootAndFarTrench() {
+        return new AutoRoutine(
+                zero(),
+                drive(150, 0.65).withIntake(false),
+                align(),
+                shoot(0, 4700, 65),
+                zeroHoodAndTurret(),
+                align(),
+                drive(175, 0.6).withIntake(false),
+                align(),
+                shoot(0, 5000, 70)
+        );
+    }
+
+    /**
+     * Two from the generator, then three from the near trench, on top of the three preloaded.
+     */
+    public static AutoRoutine eightBall() {
+        double firstRPM = 4700; //TODO: Tune
+        double secondRPM = 5000; //TODO: Tune
+        return new AutoRoutine(
+                path("StartingToGenerator", false).withIntake(false).then(pause(250)),
+                path("HalfTrench", true).withPreSpin(firstRPM)
+                        .then(align(), setPose(Constants.AutoPositions.TRENCH_EDGE), turretSetpoint(-10)),
+                shoot(5, firstRPM, 62.5), //TODO: Tune
+                path("TrenchBalls", false).withIntake(true).withPreSpin(secondRPM),
+                shoot(3, secondRPM, 67.5).withAlign() //TODO: Tune
+        );
+    }
+
+    /**
+     * Not on the mode switch yet.
+     */
+    public static AutoRoutine tenBall() {
+        double firstRPM = 4300; //TODO: Tune
+        double secondRPM = 4500; //TODO: Tune
+        return new AutoRoutine(
+                path("Snipe", false).withIntake(false),
+                path("SnipeToShoot", true).withPreSpin(firstRPM),
+                shoot(5, firstRPM, 61), //TODO: Tune
+                chain(false,
+                        leg("ShootToGenerator", false),
+                        leg("HalfTrench"),
+                        leg("TrenchBalls", true)
+                ).withPreSpin(secondRPM),
+                shoot(5, secondRPM, 63).withAlign() //TODO: Tune
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package org.frc5687.infiniterecharge.robot.commands;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.LinearFilter;
+import edu.wpi.first.wpilibj.util.Units;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.OI;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.subsystems.Shifter;
+
+/***
+ * Default command for the Shifter.  Watches filtered wheel speed, throttle and drive current and schedules a Shift
+ * (which pauses the drive motors around the solenoid change) when we should be in the other gear.  Up and down
+ * thresholds are apart so we don't hunt between gears, and the Shifter's wait period keeps us from shifting again
+ * right away (or for longer after a manual shift, so the driver's choice sticks).
+ */
+public class AutoShift extends OutliersCommand {
+    private Shifter _shifter;
+    private DriveTrain _driveTrain;
+    private OI _oi;
+
+    private LinearFilter _speedFilter;
+    private double _speed;
+    private double _throttle;
+    private double _current;
+    private String _decision = "";
+
+    public AutoShift(Shifter shifter, DriveTrain driveTrain, OI oi) {
+        _shifter = shifter;
+        _driveTrain = driveTrain;
+        _oi = oi;
+        // Only the shifter: the Shift we schedule takes the drivetrain for the duration of the shift.
+        addRequirements(_shifter);
+        _speedFilter = LinearFilter.singlePoleIIR(Constants.Shifter.VELOCITY_TIME_CONSTANT, Constants.UPDATE_PERIOD);
+    }
+
+    @Override
+    public void execute() {
+        super.execute();
+        // Wheel speeds come back in meters per second, the thresholds are in inches per second.
+        double wheelSpeed = Units.metersToInches(Math.abs(_driveTrain.getLeftVelocity() + _driveTrain.getRightVelocity()) / 2);
+        _speed = _speedFilter.calculate(wheelSpeed);
+        _throttle = Math.abs(_oi.getDriveSpeed());
+        _current = _driveTrain.getDriveCurrent();
+
+        metric("Speed", _speed);
+        metric("Throttle", _throttle);
+        metric("Current", _current);
+
+        if (!_shifter.isAutShiftEnabled() || !DriverStation.getInstance().isOperatorControl() || !_shifter.waitPeriodElapsed()) {
+            return;
+        }
+
+        Shifter.Gear gear = _shifter.getGear();
+        Shifter.Gear target = gear;
+        if (gear != Shifter.Gear.HIGH) {
+            // Don't shift up while we're loaded up (pushing), we'd just kick back down again.
+            if (_speed > Constants.Shifter.SHIFT_UP_THRESHOLD
+                    && _throttle > Constants.Shifter.SHIFT_UP_THROTTLE
+                    && _current < Constants.Shifter.PUSHING_CURRENT) {
+                target = Shifter.Gear.HIGH;
+                _decision = "up, speed over threshold";
+            }
+        } else {
+            if (_speed < Constants.Shifter.SHIFT_DOWN_THRESHOLD) {
+                target = Shifter.Gear.LOW;
+                _decision = "down, speed under threshold";
+            } else if (_current > Constants.Shifter.PUSHING_CURRENT
+                    && _speed < Constants.Shifter.PUSHING_SPEED
+                    && _throttle > Constants.Shifter.PUSHING_THROTTLE) {
+                target = Shifter.Gear.LOW;
+                _decision = "down, pushing";
+            }
+        }
+        if (target == gear) {
+            return;
+        }
+
+        info("Auto-shifting " + gear + " to " + target + " (" + _decision + "): speed=" + _speed + "in/s, throttle=" + _throttle + ", current=" + _current + "A");
+        metric("Decision", _decision);
+        new Shift(_driveTrain, _shifter, target, true).schedule();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+}
@@ -1,46 +1,79 @@
 package org.frc5687.infiniterecharge.robot.commands;
 
-import edu.wpi.first.wpilibj2.command.Command;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.subsystems.Indexer;
 import org.frc5687.infiniterecharge.robot.subsystems.Shooter;
-import org.frc5687.infiniterecharge.robot.subsystems.Turret;
+import org.frc5687.infiniterecharge.robot.util.FireControl;
 
+/***
+ * Feeds balls through FireControl once the flywheel is ready, until the shot detector has seen the expected number of
+ * balls leave, or AUTO_SHOOT_RUNON if that never happens (or no count was given).  Rather than always waiting
+ * AUTO_SHOOT_DELAY, we wait for the flywheel model's predicted spin-up time (capped at AUTO_SHOOT_DELAY) or until it's
+ * actually at speed, whichever is first, so a flywheel pre-spun by PreSpinShooter starts feeding right away.
+ */
 public class AutoShoot extends Shoot {
 
+    private Shooter _shooter;
     private Indexer _indexer;
     private long _delayMillis;
     private long _endMillis = 0;
+    private int _balls;
+    private int _startCount;
 
-    public AutoShoot(Shooter shooter, Indexer indexer, Turret turret, OI oi) {
-        super(shooter, indexer, turret, oi);
+    public AutoShoot(Shooter shooter, Indexer indexer, FireControl fireControl, OI oi) {
+        this(shooter, indexer, fireControl, oi, 0);
+    }
+
+    /**
+     * @param balls balls expected to be fired, or 0 to just run for AUTO_SHOOT_RUNON
+     */
+    public AutoShoot(Shooter shooter, Indexer indexer, FireControl fireControl, OI oi, int balls) {
+        super(shooter, indexer, fireControl, oi);
+        _shooter = shooter;
         _indexer = indexer;
+        _balls = balls;
     }
 
     @Override
     public void initialize() {
-        _delayMillis = System.currentTimeMillis() + Constants.Auto.AUTO_SHOOT_DELAY;
+        // The target RPM is set by whatever runs alongside us (AutoTarget), which initializes after we do, so the
+        // spin-up time is worked out on the first execute.
+        _delayMillis = 0;
+        _endMillis = 0;
+        _startCount = _shooter.getShotDetector().getCount();
     }
 
     @Override
     public void execute() {
-        super.execute();
-        if (System.currentTimeMillis() > _delayMillis) {
+        if (_delayMillis == 0) {
+            long spinUp = Math.round(_shooter.getTimeToSpeed(_shooter.getTargetRPM()) * 1000);
+            metric("SpinUpMillis", spinUp);
+            _delayMillis = System.currentTimeMillis() + Math.min(spinUp, Constants.Auto.AUTO_SHOOT_DELAY);
+        }
+        if (System.currentTimeMillis() > _delayMillis || _shooter.isAtTargetVelocity()) {
             if (_endMillis==0) {
                 super.initialize();
                 _endMillis = System.currentTimeMillis() + Constants.Auto.AUTO_SHOOT_RUNON;
             }
             super.execute();
         }
-
+        metric("Shots", getShots());
     }
 
     @Override
     public boolean isFinished() {
+        if (_balls > 0 && getShots() >= _balls) {
+            info("Fired " + getShots() + " balls");
+            return true;
+        }
         return (_endMillis > 0 &&  System.currentTimeMillis() > _endMillis);
     }
 
+    private int getShots() {
+        return _shooter.getShotDetector().getCount() - _startCount;
+    }
+
     public void end(boolean interrupted) {
         super.end(interrupted);
         _indexer.setIndexerSpeed(0);
@@ -1,15 +1,16 @@
 package org.frc5687.infiniterecharge.robot.commands;
 
-import edu.wpi.first.wpilibj.MedianFilter;
 import edu.wpi.first.wpilibj.util.Units;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
-import org.frc5687.infiniterecharge.robot.RobotPose;
 import org.frc5687.infiniterecharge.robot.subsystems.*;
 import org.frc5687.infiniterecharge.robot.util.Limelight;
 import org.frc5687.infiniterecharge.robot.util.PoseTracker;
+import org.frc5687.infiniterecharge.robot.util.ShotSolver;
+import org.frc5687.infiniterecharge.robot.util.ShotTable;
+import org.frc5687.infiniterecharge.robot.util.TurretTargetingService;
 
 public class AutoTarget extends OutliersCommand {
 
@@ -21,12 +22,13 @@ public class AutoTarget extends OutliersCommand {
     private Lights _lights;
     private Limelight _limelight;
     private PoseTracker _poseTracker;
-    private MedianFilter _filter;
+    private TurretTargetingService _targeting;
     private double _speed;
     private double _angle;
     private OI _oi;
     private boolean _override;
     private boolean _lock = false;
+    private ShotSolver _solver;
 
     private Mode _mode;
 
@@ -50,11 +52,16 @@ public class AutoTarget extends OutliersCommand {
         _limelight = limelight;
         _lights = lights;
         _poseTracker = poseTracker;
-        _filter = new MedianFilter(15);
+        _targeting = turret.getTargeting();
         _oi = oi;
         _speed = speed;
         _angle = angle;
         _override = override;
+        ShotTable shots = ShotTable.getInstance();
+        _solver = new ShotSolver(
+                distance -> shots.getHoodAngle(Units.metersToInches(distance)),
+                distance -> shots.getRPM(Units.metersToInches(distance)),
+                distance -> shots.getTimeOfFlight(Units.metersToInches(distance)));
         addRequirements(_turret, _shooter, _hood);
     }
 
@@ -64,7 +71,7 @@ public class AutoTarget extends OutliersCommand {
         super.initialize();
         _turret.setControlMode(Turret.Control.MotionMagic);
         _limelight.enableLEDs();
-        _filter.reset();
+        _targeting.reset();
         if (_override) {
             _hood.setPosition(_angle);
             _shooter.setVelocitySpeed(_speed);
@@ -79,17 +86,17 @@ public class AutoTarget extends OutliersCommand {
             _lock = _oi.isTurretLockPressed();
         }
         _intake.setSpeed(.4);
-        if (!_turret.isTargetInTolerance()) {
-            _filter.reset();
-        }
+        // Lead the shot by however far the robot will move while the ball is in the air.
+        _solver.solve(_driveTrain.getPose(), _driveTrain.getWheelSpeeds());
+        _solver.updateDashboard();
         if (!_override) {
-            _hood.setPosition(_hood.getHoodDesiredAngle(Units.metersToInches(_driveTrain.distanceToTarget())));
-            _shooter.setVelocitySpeed(_shooter.getDistanceSetpoint(Units.metersToInches(_driveTrain.distanceToTarget())));
+            _hood.setPosition(_solver.getHoodAngle());
+            _shooter.setVelocitySpeed(_solver.getRPM());
         }
         switch (_mode) {
             case Rough:
                 error("Targeting to rough");
-                _turret.setMotionMagicSetpoint(_driveTrain.getAngleToTarget());
+                _targeting.aimWithOdometry(_solver.getTurretLead());
                 if (_turret.isAtSetpoint()) {
                     error("Going To Limelight");
                     _mode = Mode.Limelighting;
@@ -98,16 +105,9 @@ public class AutoTarget extends OutliersCommand {
             case Limelighting:
                 if (!_shooter.isShooting()) {
                     if (_lock) {
-                        _turret.setMotionMagicSetpoint(_turret.getSetpoint());
-                    } else {
-                        _turret.setMotionMagicSetpoint(_filter.calculate(_limelight.getHorizontalAngle()) + _turret.getPositionDegrees());
-                    }
-                }
-                if (!_shooter.isShooting()) {
-                    if (_lock) {
-                        _turret.setMotionMagicSetpoint(_turret.getSetpoint());
+                        _targeting.hold();
                     } else {
-                        _turret.setMotionMagicSetpoint(_filter.calculate(_limelight.getHorizontalAngle()) + _turret.getPositionDegrees() + _turret.getManualOffset());
+                        _targeting.aimWithVision(_turret.getManualOffset() + _solver.getTurretLead());
                     }
                 }
                 _lights.setReadyToshoot(_shooter.isAtTargetVelocity() && _turret.isTargetInTolerance());
@@ -122,19 +122,6 @@ public class AutoTarget extends OutliersCommand {
         return false;
     }
 
-    protected double getTargetAngle() {
-        double limelightAngle = _filter.calculate(_limelight.getHorizontalAngle());
-        double turretAngle = _turret.getPositionDegrees();
-
-        long timekey = System.currentTimeMillis() - (long)_limelight.getLatency();
-        RobotPose pose = (RobotPose)_poseTracker.get(timekey);
-
-        double poseAngle = pose == null ? turretAngle : pose.getTurretPose().getAngle();
-        double angleCompensation = turretAngle - poseAngle;
-        double targetAngle = limelightAngle + (turretAngle + angleCompensation);
-        return targetAngle;
-    }
-
     @Override
     public void end(boolean interrupted) {
         super.end(interrupted);
@@ -33,8 +33,7 @@ public class AutoTurretTracking extends OutliersCommand {
 
     @Override
     public void execute() {
-        double position = _driveTrain.getAngleToTarget();
-       _turret.setMotionMagicSetpoint(position);
+        _turret.getTargeting().aim(0);
     }
     @Override
     public boolean isFinished() {
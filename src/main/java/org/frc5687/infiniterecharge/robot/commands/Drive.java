@@ -72,21 +72,6 @@ public class Drive extends OutliersCommand {
 
         // Get the rotation from the tiller
         double wheelRotation = _oi.getDriveRotation();
-//        if (wheelRotation==0 && stickSpeed != 0) {
-//            _useAnglePID = true;
-//            double yaw = _imu.getYaw();
-//            _anglePIDOut = _angleController.calculate(yaw);
-//        } else {
-//            _useAnglePID = false;
-//        }
-//
-//        if (wheelRotation==0 && _useAnglePID) {
-//            metric("PID/AngleOut", _anglePIDOut);
-//            metric("PID/Yaw", _imu.getYaw());
-//            _driveTrain.cheesyDrive(stickSpeed, stickSpeed==0 ?  0 :_anglePIDOut, false, true);
-//        } else {
-            _driveTrain.cheesyDrive(stickSpeed, -wheelRotation, false, false);
-//        }
 
         _targetSighted = _driveLimelight.isTargetSighted();
         if (!_oi.isAutoTargetDrivePressed()) {
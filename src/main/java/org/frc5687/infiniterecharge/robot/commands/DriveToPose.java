@@ -0,0 +1,157 @@
+package org.frc5687.infiniterecharge.robot.commands;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.util.RamseteFollower;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/***
+ * Drives from wherever the robot is to a field pose (e.g. Constants.AutoPositions.TRENCH_EDGE).  The trajectory is
+ * generated from the fused pose on a worker thread and followed with a RamseteFollower as soon as it's ready; the
+ * drivetrain is held still while we wait.  Trajectories are cached by quantized start pose, speed and end pose, so
+ * driving to the same spot from about the same place again starts right away.
+ */
+public class DriveToPose extends OutliersCommand {
+    private static final ExecutorService _generator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TrajectoryGenerator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, Trajectory> _cache = Collections.synchronizedMap(new LinkedHashMap<String, Trajectory>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Trajectory> eldest) {
+            return size() > Constants.DriveTrain.PATH_CACHE_SIZE;
+        }
+    });
+
+    private DriveTrain _driveTrain;
+    private String _name;
+    private Pose2d _target;
+    private boolean _reversed;
+
+    private RamseteFollower _follower;
+    private CompletableFuture<Trajectory> _pending;
+    private double _requestTime;
+    private boolean _failed;
+
+    public DriveToPose(DriveTrain driveTrain, String name, Pose2d target, boolean reversed) {
+        addRequirements(driveTrain);
+        _driveTrain = driveTrain;
+        _name = name;
+        _target = target;
+        _reversed = reversed;
+        _follower = new RamseteFollower(driveTrain);
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        _failed = false;
+        _pending = null;
+        Pose2d start = _driveTrain.getPose();
+        double speed = Math.max(0, (_reversed ? -1 : 1) * (_driveTrain.getLeftVelocity() + _driveTrain.getRightVelocity()) / 2);
+        String key = getKey(start, speed);
+
+        Trajectory cached = _cache.get(key);
+        if (cached != null) {
+            info("Driving to " + _name + " with cached trajectory " + key);
+            _follower.start(cached);
+            return;
+        }
+
+        info("Generating trajectory to " + _name + " from " + start);
+        _requestTime = Timer.getFPGATimestamp();
+        TrajectoryConfig config = _driveTrain.getDriveConfig(_reversed).setStartVelocity(speed);
+        _pending = CompletableFuture.supplyAsync(() -> {
+            Trajectory trajectory = TrajectoryGenerator.generateTrajectory(start, Collections.<Translation2d>emptyList(), _target, config);
+            _cache.put(key, trajectory);
+            return trajectory;
+        }, _generator);
+        _driveTrain.setPower(0, 0, true);
+    }
+
+    @Override
+    public void execute() {
+        super.execute();
+        if (!_follower.isStarted()) {
+            if (_pending == null) {
+                return;
+            }
+            if (_pending.isDone()) {
+                try {
+                    Trajectory trajectory = _pending.join();
+                    metric("GenerationMillis", (Timer.getFPGATimestamp() - _requestTime) * 1000);
+                    info("Generated trajectory to " + _name + " over " + trajectory.getTotalTimeSeconds() + "s");
+                    _follower.start(trajectory);
+                } catch (Exception e) {
+                    error("Error generating trajectory to " + _name + ": " + e.getMessage());
+                    _failed = true;
+                }
+                _pending = null;
+            } else if (Timer.getFPGATimestamp() - _requestTime > Constants.DriveTrain.PATH_GENERATION_TIMEOUT) {
+                error("Timed out generating trajectory to " + _name);
+                _failed = true;
+            }
+            return;
+        }
+        _follower.update();
+        metric("Elapsed", _follower.getElapsed());
+        metric("TrackingError", _follower.getTrackingError());
+        metric("HeadingError", _follower.getHeadingError());
+    }
+
+    @Override
+    public boolean isFinished() {
+        return _failed || _follower.isFinished();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        super.end(interrupted);
+        _follower.stop();
+        info("Ending DriveToPose " + _name + (interrupted ? " (interrupted)" : ""));
+    }
+
+    /**
+     * @return seconds until we arrive, or infinity while the trajectory is still being generated
+     */
+    public double getTimeRemaining() {
+        Trajectory trajectory = _follower.getTrajectory();
+        if (trajectory == null) {
+            return _failed ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return Math.max(0, trajectory.getTotalTimeSeconds() - _follower.getElapsed());
+    }
+
+    public Pose2d getTarget() {
+        return _target;
+    }
+
+    private String getKey(Pose2d start, double speed) {
+        return quantize(start.getTranslation().getX(), Constants.DriveTrain.PATH_POSITION_QUANTUM) + ","
+                + quantize(start.getTranslation().getY(), Constants.DriveTrain.PATH_POSITION_QUANTUM) + ","
+                + quantize(start.getRotation().getDegrees(), Constants.DriveTrain.PATH_HEADING_QUANTUM) + ","
+                + quantize(speed, Constants.DriveTrain.PATH_VELOCITY_QUANTUM) + "->"
+                + quantize(_target.getTranslation().getX(), Constants.DriveTrain.PATH_POSITION_QUANTUM) + ","
+                + quantize(_target.getTranslation().getY(), Constants.DriveTrain.PATH_POSITION_QUANTUM) + ","
+                + quantize(_target.getRotation().getDegrees(), Constants.DriveTrain.PATH_HEADING_QUANTUM)
+                + (_reversed ? "R" : "");
+    }
+
+    private long quantize(double value, double quantum) {
+        return Math.round(value / quantum);
+    }
+}
@@ -14,6 +14,9 @@ import org.frc5687.infiniterecharge.robot.subsystems.Spinner;
  *  * If there's a ball at position 3, advance until it reaches position 2
  *  * If no balls are detected in any positions:
  *  *   If the intake is running, or there are balls detected at all, run until a ball reaches position 2
+ *
+ * The rules themselves live in Indexer.getStagingSpeed, which the indexer's IR interrupts also apply on every edge
+ * while this command runs, so the indexer starts and stops as a ball arrives rather than on the next loop.
  */
 public class IdleIndexer extends OutliersCommand {
     private Indexer _indexer;
@@ -31,11 +34,13 @@ public class IdleIndexer extends OutliersCommand {
     @Override
     public void initialize() {
         super.initialize();
+        _indexer.setStaging(true);
     }
 
     @Override
     public void end(boolean interrupted) {
         super.end(interrupted);
+        _indexer.setStaging(false);
         _indexer.setIndexerSpeed(0);
     }
 
@@ -48,34 +53,27 @@ public class IdleIndexer extends OutliersCommand {
 //            _indexer.setAgitatorSpeed(Constants.Indexer.AGITATO SPEED);
 //        }
 //        _indexer.setAgitatorSpeed(Constants.Indexer.AGITATOR_SPEED);
-        double speed = 0;
-        // State machine logic below:
+        // The IR interrupts apply the same rules the moment a ball arrives or leaves; this is the backstop.
         if (_indexer.isTopTriggered()) {
             metric("State", "Top Triggered, Stopping");
-            speed = 0;
         } else if (_indexer.isMidTriggered()) {
             if (_indexer.isBottomTriggered()) {
                 metric("State", "Middle and Bottom Triggered, Advancing");
-                speed = Constants.Indexer.ADVANCE_SPEED;
             } else {
                 metric("State", "ToJust Middle Triggered, Stopping");
-                speed = 0;
             }
         } else if (_indexer.isBottomTriggered()) {
             metric("State", "Just Bottom Triggered, Stopping");
-            speed = Constants.Indexer.ADVANCE_SPEED;
-        } else if (_intake.isRunning() || _indexer.anyBallsDetected()) {
-            metric("State", "Intaking, Advancing");
-            speed = Constants.Indexer.ADVANCE_SPEED;
         } else {
             metric("State", "Intaking, Advancing");
-            speed = Constants.Indexer.ADVANCE_SPEED;
         }
+        double speed = _indexer.getStagingSpeed();
         _indexer.setIndexerSpeed(speed);
 
         _lights.setIndexerBottom(_indexer.isBottomTriggered());
         _lights.setIndexerMiddle(_indexer.isMidTriggered());
         _lights.setIndexerTop(_indexer.isTopTriggered());
+        _lights.setHopperFull(_indexer.getBallCounter().isFull());
 
     }
 
@@ -2,15 +2,18 @@ package org.frc5687.infiniterecharge.robot.commands;
 
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.commands.OutliersCommand;
+import org.frc5687.infiniterecharge.robot.subsystems.Indexer;
 import org.frc5687.infiniterecharge.robot.subsystems.Intake;
 
 public class IntakeSpin extends OutliersCommand {
     private OI _oi;
     private Intake _intake;
+    private Indexer _indexer;
     private double _rotationSpeed;
 
-    public IntakeSpin(Intake intake, OI oi) {
+    public IntakeSpin(Intake intake, Indexer indexer, OI oi) {
         _intake = intake;
+        _indexer = indexer;
         _oi = oi;
         addRequirements(_intake);
     }
@@ -23,6 +26,10 @@ public class IntakeSpin extends OutliersCommand {
     @Override
     public void execute() {
         double intakeSpeed = _oi.getIntakeSpeed();
+        // Once the hopper's full only let the driver spit balls out, unless they hold override (the count could be off)
+        if (intakeSpeed > 0 && _indexer.getBallCounter().isFull() && !_oi.isOverridePressed()) {
+            intakeSpeed = 0;
+        }
         _intake.setSpeed(intakeSpeed);
     }
 
@@ -0,0 +1,59 @@
+package org.frc5687.infiniterecharge.robot.commands;
+
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.Shooter;
+
+import java.util.function.DoubleSupplier;
+
+/***
+ * Runs alongside a drive (AutoDrivePath, AutoChainedPath, DriveToPose) and starts the flywheel just in time: once
+ * the drive's remaining time is down to the flywheel model's predicted spin-up time (plus a margin), it spins up so
+ * it reaches speed as the robot arrives.  Until then the flywheel is left off.
+ */
+public class PreSpinShooter extends OutliersCommand {
+    private Shooter _shooter;
+    private DoubleSupplier _rpm;
+    private DoubleSupplier _timeRemaining;
+    private boolean _spinning;
+
+    /**
+     * @param rpm flywheel speed wanted on arrival
+     * @param timeRemaining seconds until the drive arrives
+     */
+    public PreSpinShooter(Shooter shooter, DoubleSupplier rpm, DoubleSupplier timeRemaining) {
+        _shooter = shooter;
+        _rpm = rpm;
+        _timeRemaining = timeRemaining;
+        addRequirements(_shooter);
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        _spinning = false;
+    }
+
+    @Override
+    public void execute() {
+        super.execute();
+        double rpm = _rpm.getAsDouble();
+        double remaining = _timeRemaining.getAsDouble();
+        double spinUp = _shooter.getTimeToSpeed(rpm);
+        if (!_spinning && remaining <= spinUp + Constants.Shooter.PRESPIN_MARGIN) {
+            info("Spinning up to " + Math.round(rpm) + " with " + Math.round(remaining * 1000) + "ms to go, predicted " + Math.round(spinUp * 1000) + "ms");
+            _spinning = true;
+        }
+        if (_spinning) {
+            _shooter.setVelocitySpeed(rpm);
+        } else {
+            _shooter.setShooterSpeed(0);
+        }
+        metric("TimeRemaining", remaining);
+        metric("SpinUpTime", spinUp);
+    }
+
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+}
@@ -1,23 +1,26 @@
 package org.frc5687.infiniterecharge.robot.commands;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.subsystems.Indexer;
 import org.frc5687.infiniterecharge.robot.subsystems.Shooter;
-import org.frc5687.infiniterecharge.robot.subsystems.Turret;
+import org.frc5687.infiniterecharge.robot.util.FireControl;
 
+/***
+ * Feeds balls through FireControl, which holds each one until the flywheel, turret, hood and vision are ready.  Ends
+ * TIMEOUT after FireControl stops firing (waiting on a gate rather than feeding or recovering from a ball).
+ */
 public class Shoot extends OutliersCommand {
     private Shooter _shooter;
     private Indexer _indexer;
-    private Turret _turret;
+    private FireControl _fireControl;
     private OI _oi;
 
     private Long _endTime;
-    public Shoot(Shooter shooter, Indexer indexer, Turret turret, OI oi) {
+    public Shoot(Shooter shooter, Indexer indexer, FireControl fireControl, OI oi) {
         _shooter = shooter;
         _indexer = indexer;
-        _turret = turret;
+        _fireControl = fireControl;
         _oi = oi;
         addRequirements(_indexer);
     }
@@ -35,10 +38,9 @@ public class Shoot extends OutliersCommand {
         if (_oi!=null) {
             isOverridePressed = _oi.isOverridePressed();
         }
-        if ((_turret.isTargetInTolerance() && _shooter.isAtTargetVelocity()) || isOverridePressed) {
+        _fireControl.fire(isOverridePressed);
+        if (_fireControl.isFiring()) {
             _endTime = System.currentTimeMillis() + Constants.Shooter.TIMEOUT;
-            error("running indexer");
-            _indexer.setIndexerSpeed(Constants.Indexer.ADVANCE_SPEED);
         }
     }
 
@@ -48,13 +50,13 @@ public class Shoot extends OutliersCommand {
         if (_endTime == null) {
             return false;
         }
-        error("ending command");
         return System.currentTimeMillis() >= _endTime;
     }
 
     @Override
     public void end(boolean interrupted) {
         super.end(interrupted);
+        _fireControl.stop();
         _shooter.setShooting(false);
     }
 }
@@ -8,6 +8,8 @@ import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.RobotMap;
 import org.frc5687.infiniterecharge.robot.commands.ExtendElevator;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.PowerManager;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 public class Climber extends OutliersSubsystem {
     private CANSparkMax _elevatorSpark;
@@ -29,6 +31,12 @@ public class Climber extends OutliersSubsystem {
         _winchSpark = new CANSparkMax(RobotMap.CAN.SPARKMAX.WINCH_NEO, CANSparkMaxLowLevel.MotorType.kBrushless);
         _winchSpark.setInverted(Constants.Climber.WINCH_MOTOR_INVERTED);
         _winchEncoder = _winchSpark.getEncoder();
+
+        StatusFrameManager.getInstance().register("Climber/Elevator", _elevatorSpark, StatusFrameManager.Priority.Normal)
+                .need(StatusFrameManager.Signal.Sensor, 20);
+        StatusFrameManager.getInstance().register("Climber/Winch", _winchSpark, StatusFrameManager.Priority.Low);
+        PowerManager.getInstance().register("Climber", PowerManager.Priority.Normal,
+                () -> Math.abs(_elevatorSpark.get()) * Constants.PowerManager.ELEVATOR_CURRENT + Math.abs(_winchSpark.get()) * Constants.PowerManager.WINCH_CURRENT);
     }
 
 
@@ -19,12 +19,15 @@ import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.RobotMap;
 import org.frc5687.infiniterecharge.robot.util.BasicPose;
+import org.frc5687.infiniterecharge.robot.util.CoalescedSparkMax;
+import org.frc5687.infiniterecharge.robot.util.DriveCurrentLimiter;
+import org.frc5687.infiniterecharge.robot.util.DriveSignalPipeline;
 import org.frc5687.infiniterecharge.robot.util.Limelight;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.PowerManager;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 import static org.frc5687.infiniterecharge.robot.Constants.DriveTrain.*;
-import static org.frc5687.infiniterecharge.robot.util.Helpers.applySensitivityFactor;
-import static org.frc5687.infiniterecharge.robot.util.Helpers.limit;
 
 public class DriveTrain extends OutliersSubsystem {
     private CANSparkMax _leftMaster;
@@ -32,20 +35,19 @@ public class DriveTrain extends OutliersSubsystem {
     private CANSparkMax _rightMaster;
     private CANSparkMax _rightSlave;
 
+    private CoalescedSparkMax _leftOutput;
+    private CoalescedSparkMax _rightOutput;
+
     private CANEncoder _leftEncoder;
     private CANEncoder _rightEncoder;
 
     private DifferentialDriveOdometry _odometry;
     private DifferentialDriveKinematics _driveKinematics;
     private SimpleMotorFeedforward _driveFeedForward;
-    private TrajectoryConfig _driveConfig;
 
     private PIDController _angleController;
-    private double _targetAngle;
-    private double _previousRotation = 999;
-    private boolean _anglePIDEnabled = false;
-
-    private double _previousSpeed = 0;
+    private DriveSignalPipeline _signalPipeline;
+    private DriveCurrentLimiter _currentLimiter;
 
     private OI _oi;
     private AHRS _imu;
@@ -57,10 +59,8 @@ public class DriveTrain extends OutliersSubsystem {
     private double _xLength;
     private double _yLength;
 
-    private double _oldLeftSpeedFront;
-    private double _oldLeftSpeedBack;
-    private double _oldRightSpeedFront;
-    private double _oldRightSpeedBack;
+    private double _oldLeftSpeed;
+    private double _oldRightSpeed;
     private boolean _isPaused = false;
     private double _prevAngle;
 
@@ -120,16 +120,33 @@ public class DriveTrain extends OutliersSubsystem {
         _leftEncoder.setInverted(true);
         _leftSlave.follow(_leftMaster);
         _rightSlave.follow(_rightMaster);
+        // Followers track their masters, so only the masters are ever written.
+        _leftOutput = new CoalescedSparkMax("DriveTrain/Left", _leftMaster);
+        _rightOutput = new CoalescedSparkMax("DriveTrain/Right", _rightMaster);
+        StatusFrameManager.getInstance().register("DriveTrain/LeftMaster", _leftMaster, StatusFrameManager.Priority.High)
+                .leads()
+                .need(StatusFrameManager.Signal.Sensor, 20);
+        StatusFrameManager.getInstance().register("DriveTrain/RightMaster", _rightMaster, StatusFrameManager.Priority.High)
+                .leads()
+                .need(StatusFrameManager.Signal.Sensor, 20);
+        StatusFrameManager.getInstance().register("DriveTrain/LeftFollower", _leftSlave, StatusFrameManager.Priority.Low);
+        StatusFrameManager.getInstance().register("DriveTrain/RightFollower", _rightSlave, StatusFrameManager.Priority.Low);
+        // The followers draw what their masters do.
+        PowerManager.getInstance().register("DriveTrain", PowerManager.Priority.High, () -> 2 * (predictDemand(_leftMaster) + predictDemand(_rightMaster)));
         resetDriveEncoders();
 
-        _driveKinematics = new DifferentialDriveKinematics(Units.inchesToMeters(WIDTH));
+        _driveKinematics = new DifferentialDriveKinematics(WIDTH);
         _odometry = new DifferentialDriveOdometry(getHeading(), new Pose2d(0,0, new Rotation2d(0)));
         _driveFeedForward = new SimpleMotorFeedforward(KS_VOLTS, KV_VOLTSPR, KA_VOLTSQPR);
-        _driveConfig = new TrajectoryConfig(MAX_ACCEL_MPS, MAX_ACCEL_MPS).setKinematics(_driveKinematics);
 
         _angleController = new PIDController(Constants.DriveStraight.kP_ANGLE, Constants.DriveStraight.kI_ANGLE, Constants.DriveStraight.kD_ANGLE, Constants.UPDATE_PERIOD);
         _angleController.enableContinuousInput(-180, 180);
         _angleController.setTolerance(Constants.DriveStraight.ANGLE_TOLERANCE);
+
+        _signalPipeline = new DriveSignalPipeline(_imu::getYaw, _angleController);
+        _signalPipeline.getSpeedLimit().enableIn(Shifter.Gear.HIGH);
+        // Ramping is done by the SparkMax open loop ramp rate for now, enable this in LOW to add the low gear ramp.
+        _signalPipeline.getSlewRateLimit().disable();
     }
 
     public void enableBrakeMode() {
@@ -148,100 +165,25 @@ public class DriveTrain extends OutliersSubsystem {
     public void cheesyDrive(double speed, double rotation, boolean creep, boolean override) {
         metric("Speed", speed);
         metric("Rotation", rotation);
-        if (rotation == 0 && !_anglePIDEnabled) {
-                // We've just started "driving straight"
-                // Initialize and enable the angle controller
-            _anglePIDEnabled = true;
-            _targetAngle = _imu.getYaw();
-            _angleController.setSetpoint(_targetAngle);
-            _angleController.reset();
-        } else if (rotation!=0 &&  _anglePIDEnabled || speed == 0) {
-            _anglePIDEnabled = false;
-        } else if (_anglePIDEnabled) {
-            // Get rotation from the angle controller
-            rotation = limit(_angleController.calculate(_imu.getYaw()), -.15, 0.15);
-        }
-
-        Shifter.Gear gear = _shifter.getGear();
-        if (_shifter.getGear() == Shifter.Gear.HIGH) {
-            speed = limit(speed, Constants.DriveTrain.SPEED_LIMIT);
-        }
-        rotation = limit(rotation, 1);
-
-        double leftMotorOutput;
-        double rightMotorOutput;
-
-        double maxInput = Math.copySign(Math.max(Math.abs(speed), Math.abs(rotation)), speed);
-
-        if (speed < Constants.DriveTrain.DEADBAND && speed > -Constants.DriveTrain.DEADBAND) {
-            // Turning in place
-//            _previousSpeed = speed;
-
-            if (!_anglePIDEnabled) {
-                if (!override) {
-                    rotation = applySensitivityFactor(rotation, _shifter.getGear() == Shifter.Gear.HIGH ? Constants.DriveTrain.ROTATION_SENSITIVITY_HIGH_GEAR : Constants.DriveTrain.ROTATION_SENSITIVITY_LOW_GEAR);
-                }
-                if (creep) {
-                    rotation = rotation * CREEP_FACTOR;
-                } else {
-                    rotation = rotation * 0.8;
-                }
-            }
-            leftMotorOutput = rotation;
-            rightMotorOutput = -rotation;
-        } else {
-            // Square the inputs (while preserving the sign) to increase fine control
-            // while permitting full power.
-            speed = Math.copySign(applySensitivityFactor(speed, Constants.DriveTrain.SPEED_SENSITIVITY), speed);
-            if (!override && !_anglePIDEnabled) {
-                rotation = applySensitivityFactor(rotation, _shifter.getGear() == Shifter.Gear.HIGH ? Constants.DriveTrain.TURNING_SENSITIVITY_HIGH_GEAR : Constants.DriveTrain.TURNING_SENSITIVITY_LOW_GEAR);
-            }
-            // rotation = applySensitivityFactor(rotation, Constants.DriveTrain.ROTATION_SENSITIVITY);
-            double delta = (override || _anglePIDEnabled) ? rotation : rotation * Math.abs(speed);
-
-            // If in low gear, apply ramping.
-
-//            if (_shifter.getGear() == Shifter.Gear.LOW) {
-//                if (_previousSpeed > 0) {
-//                    error("prev speed greater than 0");
-//                    speed = limit(speed, 0, _previousSpeed + Constants.DriveTrain.RAMP_INCREMENT_LOWGEAR);
-//                } else if (_previousSpeed < 0 || speed < 0) {
-//                    error("prev speed less than 0");
-//                    speed = limit(speed, _previousSpeed - Constants.DriveTrain.RAMP_INCREMENT_LOWGEAR, 0);
-//                } else {
-//                    error("else increment");
-//                    speed = limit(speed, Constants.DriveTrain.RAMP_INCREMENT_LOWGEAR, Constants.DriveTrain.RAMP_INCREMENT_LOWGEAR);
-//                }
-//            }
-//            _previousSpeed = speed;
-
-            if (override) {
-                // speed = Math.copySign(limit(Math.abs(speed), 1-Math.abs(delta)), speed);
-
-                if (speed + Math.abs(delta) > 1) {
-                    speed = 1 - Math.abs(delta);
-                }
-
-                if (speed - Math.abs(delta) < -1) {
-                    speed = -1 + Math.abs(delta);
-                }
-            }
-            leftMotorOutput = speed + delta;
-            rightMotorOutput = speed - delta;
-//            metric("Str/LeftMotor", leftMotorOutput);
-//            metric("Str/RightMotor", rightMotorOutput);
-        }
-
-        setPower(limit(leftMotorOutput), limit(rightMotorOutput), true);
+        DriveSignalPipeline.DriveSignal signal = _signalPipeline.process(speed, rotation, creep, override, _shifter.getGear());
+        setPower(signal.getLeft(), signal.getRight(), true);
     }
+
     public void setPower(double leftSpeed, double rightSpeed, boolean override) {
-        _leftMaster.set(leftSpeed);
-        _rightMaster.set(rightSpeed);
-        _leftSlave.set(leftSpeed);
-        _rightSlave.set(rightSpeed);
+        if (_currentLimiter != null) {
+            leftSpeed *= _currentLimiter.getLeftScale();
+            rightSpeed *= _currentLimiter.getRightScale();
+        }
+        _leftOutput.set(leftSpeed);
+        _rightOutput.set(rightSpeed);
 //        metric("Power/Right", rightSpeed);
 //        metric("Power/Left", leftSpeed);
     }
+
+    public void setVoltages(double leftVolts, double rightVolts) {
+        _leftOutput.setVoltage(leftVolts);
+        _rightOutput.setVoltage(rightVolts);
+    }
     public double getRawLeftEncoder() {
         return _leftEncoder.getPosition();
     }
@@ -258,33 +200,70 @@ public class DriveTrain extends OutliersSubsystem {
         return (getLeftDistance() + getRightDistance()) / 2;
     }
     public double getLeftVelocity() {
-        return _leftEncoder.getVelocity() * 2 * Math.PI * Units.inchesToMeters(2) / 60; //Meters Per Sec
+        return Units.inchesToMeters(_leftEncoder.getVelocity() * Constants.DriveTrain.ENCODER_CONVERSION) / 60; //Meters Per Sec
     }
     public double getRightVelocity() {
-        return _rightEncoder.getVelocity() * 2 * Math.PI * Units.inchesToMeters(2.0) / 60 ; //Meters Per Sec
+        return Units.inchesToMeters(_rightEncoder.getVelocity() * Constants.DriveTrain.ENCODER_CONVERSION) / 60; //Meters Per Sec
+    }
+    /**
+     * @return average output current of the two masters (the followers draw the same).
+     */
+    public double getDriveCurrent() {
+        return (_leftMaster.getOutputCurrent() + _rightMaster.getOutputCurrent()) / 2;
+    }
+
+    /**
+     * Twice the master's, since the follower draws the same and its current frames are slowed right down.
+     * @return motor current of both left motors
+     */
+    public double getLeftCurrent() {
+        return 2 * _leftMaster.getOutputCurrent();
+    }
+
+    /**
+     * Twice the master's, since the follower draws the same and its current frames are slowed right down.
+     * @return motor current of both right motors
+     */
+    public double getRightCurrent() {
+        return 2 * _rightMaster.getOutputCurrent();
+    }
+
+    /**
+     * The SparkMax reports motor current, not what it draws from the battery; scaling by the duty cycle gives the
+     * supply current near enough.
+     * @return estimated battery current of all four drive motors
+     */
+    public double getSupplyCurrent() {
+        return Math.abs(_leftMaster.getAppliedOutput()) * getLeftCurrent() + Math.abs(_rightMaster.getAppliedOutput()) * getRightCurrent();
+    }
+    private double predictDemand(CANSparkMax master) {
+        return PowerManager.motorDemand(master.get(), master.getAppliedOutput(), master.getOutputCurrent(),
+                Constants.PowerManager.NEO_STALL_CURRENT, Constants.DriveTrain.FREE_CURRENT_LIMIT);
     }
+
     public void pauseMotors() {
-        _oldLeftSpeedFront = _leftMaster.get();
-        _oldLeftSpeedBack = _leftSlave.get();
-        _oldRightSpeedFront = _rightMaster.get();
-        _oldRightSpeedBack = _rightSlave.get();
-        _leftSlave.set(0);
-        _leftMaster.set(0);
-        _rightMaster.set(0);
-        _rightSlave.set(0);
+        _oldLeftSpeed = _leftMaster.get();
+        _oldRightSpeed = _rightMaster.get();
+        _leftOutput.set(0);
+        _rightOutput.set(0);
         _isPaused = true;
     }
 
     public void resumeMotors() {
-        _leftMaster.set(_oldLeftSpeedFront);
-        _leftSlave.set(_oldLeftSpeedBack);
-        _rightMaster.set(_oldRightSpeedFront);
-        _rightSlave.set(_oldRightSpeedBack);
+        _leftOutput.set(_oldLeftSpeed);
+        _rightOutput.set(_oldRightSpeed);
         _isPaused = false;
     }
 
+    public void setCurrentLimiter(DriveCurrentLimiter currentLimiter) {
+        _currentLimiter = currentLimiter;
+    }
+
     @Override
     public void periodic() {
+        if (_currentLimiter != null) {
+            _currentLimiter.update(_shifter.getGear());
+        }
 //        updatePose();
         _pose = _odometry.update(getHeading(), Units.inchesToMeters(getLeftDistance()), Units.inchesToMeters(getRightDistance()));
         if (_driveLimelight.isTargetSighted() && _oi.isAutoTargetDrivePressed() && _driveLimelight.getTargetDistance() < Constants.DriveTrain.LIMELIGHT_ODOMETRY_ZONE) {
@@ -300,9 +279,12 @@ public class DriveTrain extends OutliersSubsystem {
 //        metric("rightDistance", getRightDistance());
         metric("angle to target", getAngleToTarget());
         metric("distance to taget", distanceToTarget());
-        metric("using pid", _anglePIDEnabled);
+        metric("using pid", _signalPipeline.getHeadingHold().isHolding());
         metric("heading", _imu.getYaw());
-        metric("target angle", _targetAngle);
+        metric("target angle", _signalPipeline.getHeadingHold().getTargetAngle());
+        if (_currentLimiter != null) {
+            _currentLimiter.updateDashboard();
+        }
 
     }
 
@@ -326,8 +308,13 @@ public class DriveTrain extends OutliersSubsystem {
         return _driveFeedForward;
     }
 
+    /**
+     * @return a new config each call, so callers can set start/end velocity without affecting each other.
+     */
     public TrajectoryConfig getDriveConfig(boolean reversed) {
-        return _driveConfig.setReversed(reversed);
+        return new TrajectoryConfig(MAX_SPEED_MPS, MAX_ACCEL_MPS)
+                .setKinematics(_driveKinematics)
+                .setReversed(reversed);
     }
 
     public void resetOdometry(Pose2d pose) {
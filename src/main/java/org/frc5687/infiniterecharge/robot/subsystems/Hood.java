@@ -3,20 +3,22 @@ package org.frc5687.infiniterecharge.robot.subsystems;
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
-import com.ctre.phoenix.motorcontrol.StatusFrame;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 import com.cuforge.libcu.Lasershark;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.RobotMap;
+import org.frc5687.infiniterecharge.robot.util.CoalescedMotorController;
 import org.frc5687.infiniterecharge.robot.util.HallEffect;
 import org.frc5687.infiniterecharge.robot.util.Helpers;
 import org.frc5687.infiniterecharge.robot.util.Limelight;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 public class Hood extends OutliersSubsystem {
 
     private TalonSRX _hoodController;
+    private CoalescedMotorController _hoodOutput;
     private Limelight _limelight;
     private HallEffect _hoodHall;
     private OI _oi;
@@ -37,6 +39,7 @@ public class Hood extends OutliersSubsystem {
         try {
             debug("Allocating hood motor");
             _hoodController = new TalonSRX(RobotMap.CAN.TALONSRX.HOOD);
+            _hoodOutput = new CoalescedMotorController("Hood", _hoodController);
             _hoodController.setInverted(Constants.Hood.INVERTED);
             _hoodController.setNeutralMode(NeutralMode.Brake);
             _hoodController.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative,0,100);
@@ -49,7 +52,6 @@ public class Hood extends OutliersSubsystem {
             _hoodController.configMotionAcceleration(Constants.Hood.ACCELERATION);
             _hoodController.configVoltageMeasurementFilter(8);
             _hoodController.enableVoltageCompensation(true);
-            _hoodController.setStatusFramePeriod(StatusFrame.Status_10_MotionMagic, 10,20);
             _hoodController.configClosedloopRamp(0,50);
             _hoodController.config_kP(0, Constants.Hood.kP, 30);
             _hoodController.config_kI(0, Constants.Hood.kI, 30);
@@ -57,18 +59,22 @@ public class Hood extends OutliersSubsystem {
             _hoodController.config_kF(0, Constants.Hood.kF, 30);
             _hoodController.config_IntegralZone(0, Constants.Hood.I_ZONE, 30);
             _hoodController.selectProfileSlot(0, 0);
+            StatusFrameManager.getInstance().register("Hood", _hoodController, StatusFrameManager.Priority.High)
+                    .need(StatusFrameManager.Signal.Output, 20)
+                    .need(StatusFrameManager.Signal.Sensor, 20)
+                    .need(StatusFrameManager.Signal.MotionMagic, 10);
         } catch (Exception e) {
             error("Exception allocating hood motor" + e.getMessage());
         }
     }
 
     public void setSpeed(double speed) {
-        _hoodController.set(ControlMode.PercentOutput, speed);
+        _hoodOutput.set(ControlMode.PercentOutput, speed);
     }
 
     public void setPosition(double angle) {
         _setPoint = Helpers.limit(angle, Constants.Hood.MIN_DEGREES, Constants.Hood.MAX_DEGREES);
-        _hoodController.set(ControlMode.MotionMagic, _setPoint / Constants.Hood.TICKS_TO_DEGREES);
+        _hoodOutput.set(ControlMode.MotionMagic, _setPoint / Constants.Hood.TICKS_TO_DEGREES);
     }
 
     public int getPositionTicks() {
@@ -106,10 +112,6 @@ public class Hood extends OutliersSubsystem {
         return _hoodController.isMotionProfileFinished();
     }
 
-    public double getHoodDesiredAngle(double distance) {
-        return (11.285*Math.log(distance)) + 3.0224;
-    }
-
     @Override
     public void periodic() {
         if (isHallTriggered()) {
@@ -5,25 +5,35 @@ import com.ctre.phoenix.motorcontrol.can.VictorSPX;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel;
 import edu.wpi.first.wpilibj.Servo;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.VictorSP;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.RobotMap;
+import org.frc5687.infiniterecharge.robot.util.BallCounter;
+import org.frc5687.infiniterecharge.robot.util.CoalescedMotorController;
+import org.frc5687.infiniterecharge.robot.util.CoalescedPWM;
+import org.frc5687.infiniterecharge.robot.util.CoalescedSparkMax;
 import org.frc5687.infiniterecharge.robot.util.DigitalIR;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.PowerManager;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 public class Indexer extends OutliersSubsystem {
 
     private CANSparkMax _indexerNeo;
     private VictorSPX _agitator;
+    private CoalescedSparkMax _indexerOutput;
+    private CoalescedMotorController _agitatorOutput;
 
-    private Servo _agitatorServo1;
-    private Servo _agitatorServo2;
-    private Servo _agitatorServo3;
-    private Servo _agitatorServo4;
-    private Servo _agitatorServo5;
+    private CoalescedPWM _agitatorServo1;
+    private CoalescedPWM _agitatorServo2;
+    private CoalescedPWM _agitatorServo3;
+    private CoalescedPWM _agitatorServo4;
+    private CoalescedPWM _agitatorServo5;
 
     private boolean _abort;
+    private boolean _agitatorShed = false;
 
     private OI _oi;
 
@@ -31,6 +41,15 @@ public class Indexer extends OutliersSubsystem {
     private DigitalIR _midIR;
     private DigitalIR _topIR;
 
+    // Staging runs from the IR interrupts as well as IdleIndexer, so indexer writes go through this lock
+    private final Object _lock = new Object();
+    private boolean _staging = false;
+    private volatile double _lastReaction;
+    private volatile double _maxReaction;
+
+    private BallCounter _ballCounter;
+    private boolean _jammed = false;
+
     public Indexer(OutliersContainer container) {
         super(container);
 
@@ -39,17 +58,29 @@ public class Indexer extends OutliersSubsystem {
         _indexerNeo.setIdleMode(CANSparkMax.IdleMode.kBrake);
         _agitator = new VictorSPX(RobotMap.CAN.VICTORSPX.AGITATOR);
         _agitator.setInverted(false);
-
-
-        _agitatorServo1 = new Servo(RobotMap.PWM.AGITATOR1);
-        _agitatorServo2 = new Servo(RobotMap.PWM.AGITATOR2);
-        _agitatorServo3 = new Servo(RobotMap.PWM.AGITATOR3);
-        _agitatorServo4 = new Servo(RobotMap.PWM.AGITATOR4);
-        _agitatorServo5 = new Servo(RobotMap.PWM.AGITATOR5);
+        StatusFrameManager.getInstance().register("Indexer", _indexerNeo, StatusFrameManager.Priority.Low);
+        StatusFrameManager.getInstance().register("Indexer/Agitator", _agitator, StatusFrameManager.Priority.Low);
+        _indexerOutput = new CoalescedSparkMax("Indexer", _indexerNeo);
+        _agitatorOutput = new CoalescedMotorController("Indexer/Agitator", _agitator);
+        PowerManager.getInstance().register("Indexer/Agitator", PowerManager.Priority.Low, () -> Constants.PowerManager.AGITATOR_CURRENT)
+                .sheddable(() -> _agitatorShed = true, () -> _agitatorShed = false);
+
+
+        _agitatorServo1 = new CoalescedPWM("Indexer/Servo1", new Servo(RobotMap.PWM.AGITATOR1));
+        _agitatorServo2 = new CoalescedPWM("Indexer/Servo2", new Servo(RobotMap.PWM.AGITATOR2));
+        _agitatorServo3 = new CoalescedPWM("Indexer/Servo3", new Servo(RobotMap.PWM.AGITATOR3));
+        _agitatorServo4 = new CoalescedPWM("Indexer/Servo4", new Servo(RobotMap.PWM.AGITATOR4));
+        _agitatorServo5 = new CoalescedPWM("Indexer/Servo5", new Servo(RobotMap.PWM.AGITATOR5));
         _bottomIR = new DigitalIR(RobotMap.DIO.BOTTOM_IR);
         _midIR = new DigitalIR(RobotMap.DIO.MID_IR);
         _topIR = new DigitalIR(RobotMap.DIO.TOP_IR);
-
+        _ballCounter = new BallCounter(_bottomIR);
+        _bottomIR.enableEdgeInterrupts(() -> {
+            _ballCounter.onEntryEdge();
+            onBallEdge(_bottomIR);
+        });
+        _midIR.enableEdgeInterrupts(() -> onBallEdge(_midIR));
+        _topIR.enableEdgeInterrupts(() -> onBallEdge(_topIR));
     }
 
     public boolean isTopTriggered() {
@@ -65,7 +96,51 @@ public class Indexer extends OutliersSubsystem {
     }
 
     public void setIndexerSpeed(double speed) {
-        _indexerNeo.set(speed);
+        synchronized (_lock) {
+            _indexerOutput.set(speed);
+        }
+    }
+
+    /**
+     * Turns interrupt-driven staging on or off.  While on, every IR edge re-applies the staging rules straight away
+     * (see getStagingSpeed) rather than waiting for the next IdleIndexer.execute.
+     */
+    public void setStaging(boolean staging) {
+        synchronized (_lock) {
+            _staging = staging;
+            if (staging) {
+                _indexerOutput.set(getStagingSpeed());
+            }
+        }
+    }
+
+    /**
+     * The staging rules: stop with a ball at the top, or with one in the middle and none below it; otherwise advance.
+     */
+    public double getStagingSpeed() {
+        if (isTopTriggered()) {
+            return 0;
+        }
+        if (isMidTriggered() && !isBottomTriggered()) {
+            return 0;
+        }
+        return Constants.Indexer.ADVANCE_SPEED;
+    }
+
+    private void onBallEdge(DigitalIR sensor) {
+        synchronized (_lock) {
+            if (!_staging) {
+                return;
+            }
+            _indexerOutput.set(getStagingSpeed());
+        }
+        double reaction = Timer.getFPGATimestamp() - sensor.getLastEdge();
+        _lastReaction = reaction;
+        _maxReaction = Math.max(_maxReaction, reaction);
+    }
+
+    public BallCounter getBallCounter() {
+        return _ballCounter;
     }
 
     public void stopAgitator() {
@@ -77,13 +152,13 @@ public class Indexer extends OutliersSubsystem {
     }
 
     public void setAgitatorSpeed(double speed) {
-        _agitator.set(ControlMode.PercentOutput, speed);
+        _agitatorOutput.set(ControlMode.PercentOutput, speed);
     }
 
 
     @Override
     public void periodic() {
-        setAgitatorSpeed(Constants.Indexer.AGITATOR_SPEED);
+        setAgitatorSpeed(_agitatorShed ? Constants.Indexer.AGITATOR_SPEED * Constants.PowerManager.AGITATOR_SHED_FACTOR : Constants.Indexer.AGITATOR_SPEED);
         if (_abort) {
             _agitatorServo1.set(Constants.Indexer.SERVO_STOPPED);
             _agitatorServo2.set(Constants.Indexer.SERVO_STOPPED);
@@ -97,6 +172,21 @@ public class Indexer extends OutliersSubsystem {
             _agitatorServo4.set(0.00);
             _agitatorServo5.set(0.00);
         }
+        updateBallCount();
+    }
+
+    private void updateBallCount() {
+        int seen = (_bottomIR.get() ? 1 : 0) + (_midIR.get() ? 1 : 0) + (_topIR.get() ? 1 : 0);
+        _ballCounter.atLeast(seen);
+
+        // A ball sitting on the entry sensor for JAM_TIME while we're trying to move it along is stuck.  Count each
+        // blockage once.
+        boolean stuck = _bottomIR.get() && _indexerNeo.get() > 0
+                && Timer.getFPGATimestamp() - _bottomIR.getLastArrival() > Constants.BallCounter.JAM_TIME;
+        if (stuck && !_jammed) {
+            _ballCounter.onJam();
+        }
+        _jammed = stuck || (_jammed && _bottomIR.get());
     }
 
     @Override
@@ -104,6 +194,12 @@ public class Indexer extends OutliersSubsystem {
         metric("IR1", _topIR.get());
         metric("IR2", _midIR.get());
         metric("IR3", _bottomIR.get());
+        metric("Arrivals/Top", _topIR.getArrivals());
+        metric("Arrivals/Mid", _midIR.getArrivals());
+        metric("Arrivals/Bottom", _bottomIR.getArrivals());
+        metric("ReactionMillis", _lastReaction * 1000);
+        metric("MaxReactionMillis", _maxReaction * 1000);
+        _ballCounter.updateDashboard();
     }
 
     public boolean anyBallsDetected() {
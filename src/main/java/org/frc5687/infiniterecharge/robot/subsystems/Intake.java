@@ -9,11 +9,15 @@ import org.frc5687.infiniterecharge.robot.RobotMap;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.commands.IntakeSpin;
 import org.frc5687.infiniterecharge.robot.subsystems.OutliersSubsystem;
+import org.frc5687.infiniterecharge.robot.util.CoalescedSparkMax;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.PowerManager;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 public class Intake extends OutliersSubsystem {
 
     private CANSparkMax _intakeSpark;
+    private CoalescedSparkMax _intakeOutput;
     private DoubleSolenoid _intakeSolenoid;
     private OI _oi;
 
@@ -25,6 +29,9 @@ public class Intake extends OutliersSubsystem {
         _intakeSpark = new CANSparkMax(RobotMap.CAN.SPARKMAX.INTAKE_NEO, CANSparkMaxLowLevel.MotorType.kBrushless);
         _intakeSpark.setInverted(Constants.Intake.INTAKE_MOTOR_INVERTED);
         _intakeSpark.setIdleMode(CANSparkMax.IdleMode.kBrake);
+        StatusFrameManager.getInstance().register("Intake", _intakeSpark, StatusFrameManager.Priority.Low);
+        PowerManager.getInstance().register("Intake", PowerManager.Priority.Normal, () -> Math.abs(_intakeSpark.get()) * Constants.PowerManager.INTAKE_CURRENT);
+        _intakeOutput = new CoalescedSparkMax("Intake", _intakeSpark);
     }
 
     public boolean isRunning() {
@@ -84,7 +91,7 @@ public class Intake extends OutliersSubsystem {
 
 
     public void setSpeed(double speed) {
-        _intakeSpark.set(speed);
+        _intakeOutput.set(speed);
     }
 
     public double getIntakePower() {return _intakeSpark.get(); }
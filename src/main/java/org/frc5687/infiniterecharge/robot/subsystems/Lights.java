@@ -4,12 +4,13 @@ import edu.wpi.first.wpilibj.Spark;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.RobotMap;
+import org.frc5687.infiniterecharge.robot.util.CoalescedPWM;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
 
 public class Lights extends OutliersSubsystem {
 
-    private Spark _shortController;
-    private Spark _longController;
+    private CoalescedPWM _shortController;
+    private CoalescedPWM _longController;
 
     private boolean _controlPanelDetected;
     private boolean _readyToshoot;
@@ -26,8 +27,8 @@ public class Lights extends OutliersSubsystem {
 
     public Lights(OutliersContainer container, OI oi) {
         super(container);
-        _shortController = new Spark(RobotMap.PWM.SHORT_LED_STRIP);
-        _longController = new Spark(RobotMap.PWM.LONG_LED_STRIP);
+        _shortController = new CoalescedPWM("Lights/Short", new Spark(RobotMap.PWM.SHORT_LED_STRIP));
+        _longController = new CoalescedPWM("Lights/Long", new Spark(RobotMap.PWM.LONG_LED_STRIP));
         _oi = oi;
     }
 
@@ -64,6 +65,8 @@ public class Lights extends OutliersSubsystem {
         } else if (_targetingButnotReadytoShoot) {
             shortColor = longColor = consoleColor = Color.yellow;
             consoleColor = Color.white;
+        } else if (_hopperFull) {
+            shortColor = longColor = consoleColor = Color.white;
         } else if (_indexerBottom && _indexerMiddle && _indexerTop) {
             shortColor = Color.white;
             longColor = Color.white;
@@ -5,6 +5,7 @@ import edu.wpi.first.wpilibj.DoubleSolenoid;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.RobotMap;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.PowerManager;
 
 public class Shifter extends OutliersSubsystem {
 
@@ -16,6 +17,10 @@ public class Shifter extends OutliersSubsystem {
     public Shifter(OutliersContainer container) {
         super(container);
         shifterSolenoid = new DoubleSolenoid(RobotMap.PCM.SHIFTER_HIGH, RobotMap.PCM.SHIFTER_LOW);
+        compressor = new Compressor();
+        // The compressor only tops up the tanks, so it's the first thing to go when power is short.
+        PowerManager.getInstance().register("Compressor", PowerManager.Priority.Low, compressor::getCompressorCurrent)
+                .sheddable(compressor::stop, compressor::start);
     }
 
     @Override
@@ -66,6 +71,7 @@ public class Shifter extends OutliersSubsystem {
 
     public void updateDashboard() {
         metric("Gear", getGear()== Gear.HIGH ? "High" : (getGear() == Gear.LOW ? "Low" : "Unknown"));
+        metric("AutoShiftEnabled", autShiftEnabled);
     }
 
     public enum Gear {
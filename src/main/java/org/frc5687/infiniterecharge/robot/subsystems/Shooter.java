@@ -1,24 +1,33 @@
 package org.frc5687.infiniterecharge.robot.subsystems;
 
+import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.FeedbackDevice;
-import com.ctre.phoenix.motorcontrol.StatusFrame;
-import com.ctre.phoenix.motorcontrol.TalonFXControlMode;
 import com.ctre.phoenix.motorcontrol.VelocityMeasPeriod;
 import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import edu.wpi.first.wpilibj.Timer;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.RobotMap;
+import org.frc5687.infiniterecharge.robot.util.CoalescedMotorController;
+import org.frc5687.infiniterecharge.robot.util.FlywheelModel;
 import org.frc5687.infiniterecharge.robot.util.Helpers;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.PowerManager;
+import org.frc5687.infiniterecharge.robot.util.ShotDetector;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 public class Shooter extends OutliersSubsystem {
 
     private DriveTrain _driveTrain;
     private TalonFX _shooterRight;
     private TalonFX _shooterLeft;
+    private CoalescedMotorController _shooterOutput;
     private OI _oi;
     private boolean _shooting = false;
-    private double _targetRPM;
+    private volatile double _targetRPM;
+    private volatile boolean _velocityMode = false;
+    private FlywheelModel _model = new FlywheelModel();
+    private ShotDetector _shotDetector;
 
 
 
@@ -31,6 +40,7 @@ public class Shooter extends OutliersSubsystem {
         _shooterLeft = new TalonFX(RobotMap.CAN.TALONFX.LEFT_SHOOTER);
 
         _shooterLeft.follow(_shooterRight);
+        _shooterOutput = new CoalescedMotorController("Shooter", _shooterRight);
         _shooterRight.config_kP(0,Constants.Shooter.kP, 50);
         _shooterRight.config_kI(0,Constants.Shooter.kI, 50);
         _shooterRight.config_kD(0,Constants.Shooter.kD, 50);
@@ -40,9 +50,23 @@ public class Shooter extends OutliersSubsystem {
         _shooterLeft.setInverted(Constants.Shooter.LEFT_INVERTED);
         _shooterRight.setInverted(Constants.Shooter.RIGHT_INVERTED);
         _shooterRight.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor);
-        _shooterRight.getStatusFramePeriod(StatusFrame.Status_2_Feedback0, 10);
         _shooterRight.configClosedloopRamp(1);
+        _shooterRight.configVelocityMeasurementPeriod(VelocityMeasPeriod.Period_10Ms);
+        _shooterRight.configVelocityMeasurementWindow(Constants.ShotDetector.VELOCITY_WINDOW);
         _shooterRight.selectProfileSlot(0,0);
+
+        StatusFrameManager.getInstance().register("Shooter/Right", _shooterRight, StatusFrameManager.Priority.High)
+                .leads()
+                .need(StatusFrameManager.Signal.Sensor, Constants.ShotDetector.SENSOR_PERIOD);
+        StatusFrameManager.getInstance().register("Shooter/Left", _shooterLeft, StatusFrameManager.Priority.Low);
+        PowerManager.getInstance().register("Shooter", PowerManager.Priority.High, this::predictDemand);
+        _shotDetector = new ShotDetector(this::getRPM, () -> _velocityMode ? _targetRPM : 0);
+    }
+
+    @Override
+    public void periodic() {
+        _model.update(Timer.getFPGATimestamp(), getRPM(), _targetRPM, _velocityMode);
+        _shotDetector.poll();
     }
 
     @Override
@@ -51,18 +75,22 @@ public class Shooter extends OutliersSubsystem {
         metric("Position", getPosition());
         metric("Velocity/RPM", getRPM());
         metric("Shooting", _shooting);
+        _model.updateDashboard();
+        _shotDetector.updateDashboard();
     }
 
 
     public void setShooterSpeed(double speed) {
         metric("Speed", speed);
-        _shooterRight.set(TalonFXControlMode.PercentOutput, speed);
+        _velocityMode = false;
+        _shooterOutput.set(ControlMode.PercentOutput, speed);
     }
 
     public void setVelocitySpeed(double RPM) {
         _targetRPM = RPM;
         _targetRPM = Helpers.limit(_targetRPM, 0, 7200);
-        _shooterRight.set(TalonFXControlMode.Velocity, (_targetRPM * Constants.Shooter.TICKS_TO_ROTATIONS / 600 / 1.25));
+        _velocityMode = true;
+        _shooterOutput.set(ControlMode.Velocity, (_targetRPM * Constants.Shooter.TICKS_TO_ROTATIONS / 600 / 1.25));
     }
 
     public double getPosition() {
@@ -85,8 +113,37 @@ public class Shooter extends OutliersSubsystem {
         return Math.abs(getRPM() - _targetRPM) < Constants.Shooter.RPM_TOLERANCE;
     }
 
-    public double getDistanceSetpoint(double distance) {
-        return (-0.0106*(distance * distance)) + (11.52 * distance) + 2210.3;
+    public double getTargetRPM() {
+        return _targetRPM;
+    }
+
+    /**
+     * @return predicted seconds to get from the current speed to within tolerance of RPM
+     */
+    public double getTimeToSpeed(double RPM) {
+        return _model.predict(getRPM(), RPM);
+    }
+
+    public ShotDetector getShotDetector() {
+        return _shotDetector;
+    }
+
+    /**
+     * @return supply current of both motors, from the leader (the follower's frames are slowed down)
+     */
+    public double getSupplyCurrent() {
+        return 2 * _shooterRight.getSupplyCurrent();
+    }
+
+    /**
+     * While spinning up the velocity loop runs flat out, otherwise it holds about the duty it's at now.
+     * @return predicted supply current of both motors
+     */
+    private double predictDemand() {
+        double applied = _shooterRight.getMotorOutputPercent();
+        double commanded = _velocityMode && getRPM() < _targetRPM - Constants.Shooter.RPM_TOLERANCE ? 1 : applied;
+        return 2 * PowerManager.motorDemand(commanded, applied, Math.abs(_shooterRight.getStatorCurrent()),
+                Constants.PowerManager.FALCON_STALL_CURRENT, Constants.PowerManager.FALCON_STALL_CURRENT);
     }
 
     public boolean isShooting() {
@@ -9,11 +9,12 @@ import com.revrobotics.ColorSensorV3;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.I2C;
-import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.util.Color;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.RobotMap;
+import org.frc5687.infiniterecharge.robot.util.ColorSensorReader;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -31,10 +32,8 @@ public class Spinner extends OutliersSubsystem {
     private DoubleSolenoid _solenoid;
     private ColorMatch _revColorMatcher = new ColorMatch();
     private Map<MatchedColor, Color> _swatches = new HashMap<>();
-    private MatchedColor _previouslyMatchedColor = MatchedColor.unknown;
     private Map<MatchedColor, MatchedColor> _fieldToRobotColorMap = new HashMap<>();
-    private Notifier _sampleTask;
-    private int _wedgeCount = 0;
+    private ColorSensorReader _reader;
 
     public MatchedColor getTargetColorFromField() {
         String gameData;
@@ -78,58 +77,42 @@ public class Spinner extends OutliersSubsystem {
             _motorController = new VictorSPX(RobotMap.CAN.VICTORSPX.SPINNER_SKYWALKER);
             _motorController.setNeutralMode(NeutralMode.Brake);
             _solenoid = new DoubleSolenoid(RobotMap.PCM.SPINNER_DEPLOY, RobotMap.PCM.SPINNER_STOW);
+            StatusFrameManager.getInstance().register("Spinner", _motorController, StatusFrameManager.Priority.Low)
+                    .need(StatusFrameManager.Signal.Sensor, 100);
         } catch (Exception e) {
             error("error allocating spinner motor controller: " + e.getMessage());
             e.printStackTrace();
         }
 
-        // We poll the color sensor to determine if it sufficiently matches one of our swatch colors. If we
-        // detect that it has changed since the last sample, we increment the wedge count, which can be used
-        // for autospin. Eventually we might want to add some filtering to the callback (especially if we use
-        // a sensor with a higher sample rate), or comparison to check whether the read wedge color is the
-        // color that we expected to see next. We start this task when we start spinning, and stop it when we
-        // stop spinning, so we don't steal too many CPU cycles when thw robot is busy doing other stuff.
-        _sampleTask = new Notifier(() -> {
-            info("Sampling color");
-            MatchedColor newMatchedColor = senseColor();
-            if (!newMatchedColor.equals(_previouslyMatchedColor) && !newMatchedColor.equals(MatchedColor.unknown)) {
-                _wedgeCount++;
-                _previouslyMatchedColor = newMatchedColor;
-            }
-        });
-        _sampleTask.startPeriodic(Constants.Spinner.SENSOR_SAMPLE_PERIOD_SECONDS);
-
         _fieldToRobotColorMap.put(MatchedColor.yellow, MatchedColor.green);
         _fieldToRobotColorMap.put(MatchedColor.red, MatchedColor.blue);
         _fieldToRobotColorMap.put(MatchedColor.green, MatchedColor.yellow);
         _fieldToRobotColorMap.put(MatchedColor.blue, MatchedColor.red);
 
         setupColorMatchingAlgorithms();
-    }
 
-    /**
-     * If a valid color has been cached (e.g., by the periodic notifier task), return that value. Otherwise take a
-     * reading from the sensor and attempt to match it.
-     * @return Color.red, Color.green, Color.blue, Color.yellow, or Color.unknown
-     */
-    public MatchedColor getColor() {
-        if (Constants.Spinner.ASYNC_COLOR_SAMPLING) {
-            if (_previouslyMatchedColor == null || _previouslyMatchedColor.equals(MatchedColor.unknown)) {
-                _previouslyMatchedColor = senseColor();
+        // The reader owns the sensor from here on: it samples on its own thread at the sensor's measurement rate,
+        // and does the wedge counting for autospin, so nothing else has to go over I2C for a color.
+        if (_colorSensor != null) {
+            _reader = new ColorSensorReader(_colorSensor, this::matchColor);
+            if (Constants.Spinner.ASYNC_COLOR_SAMPLING) {
+                _reader.start();
             }
-            return _previouslyMatchedColor;
         }
-        return senseColor();
     }
 
     /**
-     * Gets a sensor reading from the color sensor and attempts to match it against the
-     * swatches of red, green, yellow, or blue
+     * Returns the debounced color cached by the reader thread. If async sampling is off, takes a reading first.
      * @return Color.red, Color.green, Color.blue, Color.yellow, or Color.unknown
      */
-    public MatchedColor senseColor() {
-        Color sensorReading = _colorSensor.getColor();
-        return matchColor(sensorReading);
+    public MatchedColor getColor() {
+        if (_reader == null) {
+            return MatchedColor.unknown;
+        }
+        if (!Constants.Spinner.ASYNC_COLOR_SAMPLING) {
+            _reader.sample();
+        }
+        return _reader.getColor();
     }
 
     /**
@@ -151,9 +134,6 @@ public class Spinner extends OutliersSubsystem {
     public void deploy() {
         _solenoid.set(DoubleSolenoid.Value.kForward);
         info("Deployed spinner");
-        if (Constants.Spinner.ASYNC_COLOR_SAMPLING) {
-            _sampleTask.startPeriodic(Constants.Spinner.SENSOR_SAMPLE_PERIOD_SECONDS);
-        }
     }
 
     /**
@@ -162,9 +142,6 @@ public class Spinner extends OutliersSubsystem {
     public void stow() {
         _solenoid.set(DoubleSolenoid.Value.kReverse);
         info("Stowed spinner");
-        if (Constants.Spinner.ASYNC_COLOR_SAMPLING) {
-            _sampleTask.stop();
-        }
     }
 
     public boolean isDeployed() {
@@ -225,11 +202,13 @@ public class Spinner extends OutliersSubsystem {
     }
 
     public void resetWedgeCount() {
-        _wedgeCount = 0;
+        if (_reader != null) {
+            _reader.resetWedgeCount();
+        }
     }
 
     public int getWedgeCount() {
-        return _wedgeCount;
+        return _reader == null ? 0 : _reader.getWedgeCount();
     }
 
     /**
@@ -288,18 +267,21 @@ public class Spinner extends OutliersSubsystem {
 
     @Override
     public void updateDashboard() {
-        if (_colorSensor != null) {
-            metric("Spinner/ColorTheFieldSees", getColorTheRobotSeesForColorTheFieldSees(getColor()).toString());
-            metric("Spinner/RawRed", _colorSensor.getRed());
-            metric("Spinner/RawGreen", _colorSensor.getGreen());
-            metric("Spinner/RawBlue", _colorSensor.getBlue());
-            metric("Spinner/NormRed", _colorSensor.getColor().red);
-            metric("Spinner/NormGreen", _colorSensor.getColor().green);
-            metric("Spinner/NormBlue", _colorSensor.getColor().blue);
-            metric("Spinner/Color", getColor().toString());
-            metric("Spinner/IR", _colorSensor.getIR());
-            metric("Spinner/Proximity", _colorSensor.getProximity());
-            metric("Spinner/WedgeCount", _wedgeCount);
+        ColorSensorReader.Reading reading = _reader == null ? null : _reader.getLatest();
+        if (reading != null) {
+            MatchedColor color = getColor();
+            metric("Spinner/ColorTheFieldSees", getColorTheRobotSeesForColorTheFieldSees(color).toString());
+            metric("Spinner/RawRed", reading.getRaw().red);
+            metric("Spinner/RawGreen", reading.getRaw().green);
+            metric("Spinner/RawBlue", reading.getRaw().blue);
+            metric("Spinner/NormRed", reading.getColor().red);
+            metric("Spinner/NormGreen", reading.getColor().green);
+            metric("Spinner/NormBlue", reading.getColor().blue);
+            metric("Spinner/Color", color.toString());
+            metric("Spinner/IR", reading.getRaw().ir);
+            metric("Spinner/Proximity", reading.getProximity());
+            metric("Spinner/WedgeCount", getWedgeCount());
+            _reader.updateDashboard();
         }
         if (_solenoid != null) {
             metric("Spinner/ArmIsRaised", isDeployed());
@@ -1,20 +1,28 @@
 package org.frc5687.infiniterecharge.robot.subsystems;
 
+import com.ctre.phoenix.ParamEnum;
 import com.ctre.phoenix.motorcontrol.*;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Units;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import org.frc5687.infiniterecharge.robot.Constants;
 import org.frc5687.infiniterecharge.robot.OI;
 import org.frc5687.infiniterecharge.robot.RobotMap;
 import org.frc5687.infiniterecharge.robot.commands.DriveTurret;
+import org.frc5687.infiniterecharge.robot.util.CoalescedMotorController;
+import org.frc5687.infiniterecharge.robot.util.ConfigQueue;
 import org.frc5687.infiniterecharge.robot.util.Helpers;
 import org.frc5687.infiniterecharge.robot.util.Limelight;
 import org.frc5687.infiniterecharge.robot.util.OutliersContainer;
+import org.frc5687.infiniterecharge.robot.util.PowerManager;
+import org.frc5687.infiniterecharge.robot.util.StatusFrameManager;
 
 import org.frc5687.infiniterecharge.robot.Constants.AutoPositions.*;
 import org.frc5687.infiniterecharge.robot.util.TurretPose;
+import org.frc5687.infiniterecharge.robot.util.TurretTargetingService;
+import org.frc5687.infiniterecharge.robot.util.TurretWrapPlanner;
 
 import java.lang.annotation.Target;
 
@@ -22,10 +30,13 @@ import java.lang.annotation.Target;
 public class Turret extends OutliersSubsystem {
 
     private TalonSRX _turretController;
+    private CoalescedMotorController _turretOutput;
     private Limelight _limelight;
     private DriveTrain _driveTrain;
     private Hood _hood;
     private OI _oi;
+    private TurretTargetingService _targeting;
+    private TurretWrapPlanner _wrapPlanner = new TurretWrapPlanner();
 
     private int _positionPIDSlot = 0;
     private int _velocityPIDSlot = 1;
@@ -43,10 +54,12 @@ public class Turret extends OutliersSubsystem {
         _hood = hood;
         _limelight = limelight;
         _oi = oi;
+        _targeting = new TurretTargetingService(this, driveTrain, limelight);
 
         try {
             debug("allocating turret motor");
             _turretController = new TalonSRX(RobotMap.CAN.TALONSRX.TURRET);
+            _turretOutput = new CoalescedMotorController("Turret", _turretController);
             _turretController.setInverted(Constants.Turret.INVERTED);
             _turretController.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative,0,100);
             _turretController.setSensorPhase(Constants.Turret.SENSOR_PHASE_INVERTED);
@@ -58,53 +71,95 @@ public class Turret extends OutliersSubsystem {
             _turretController.configMotionAcceleration(Constants.Turret.ACCELERATION);
             _turretController.configVoltageMeasurementFilter(8);
             _turretController.enableVoltageCompensation(true);
-            _turretController.setStatusFramePeriod(StatusFrame.Status_10_MotionMagic, 10,20);
             _turretController.configClosedloopRamp(0,50);
             _turretController.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector, LimitSwitchNormal.NormallyOpen, 30);
             _turretController.configReverseLimitSwitchSource(LimitSwitchSource.FeedbackConnector, LimitSwitchNormal.NormallyOpen, 30);
             _turretController.setNeutralMode(NeutralMode.Brake);
+            // Load every slot now, so switching control modes later is just a slot select.
+            loadGains(_positionPIDSlot, Constants.Turret.Position.kP, Constants.Turret.Position.kI, Constants.Turret.Position.kD, Constants.Turret.Position.kF);
+            loadGains(_velocityPIDSlot, Constants.Turret.Velocity.kP, Constants.Turret.Velocity.kI, Constants.Turret.Velocity.kD, Constants.Turret.Velocity.kF);
+            loadGains(_motionMagicPIDSlot, Constants.Turret.MotionMagic.kP, Constants.Turret.MotionMagic.kI, Constants.Turret.MotionMagic.kD, Constants.Turret.MotionMagic.kF);
+            _turretController.configAllowableClosedloopError(_motionMagicPIDSlot, 0, 50);
+            StatusFrameManager.getInstance().register("Turret", _turretController, StatusFrameManager.Priority.High)
+                    .need(StatusFrameManager.Signal.Sensor, 10)
+                    .need(StatusFrameManager.Signal.Output, 100)
+                    .need(StatusFrameManager.Signal.Absolute, 100);
+            PowerManager.getInstance().register("Turret", PowerManager.Priority.High, _turretController::getSupplyCurrent);
         } catch (Exception e) {
             error("error allocating turret motors " + e.getMessage());
         }
         zeroSensors();
+
+        // Gains can be tuned from the dashboard: pick the control mode, enter the gains, then tick SetGains.
+        SmartDashboard.putString("Turret/GainControl", Control.MotionMagic.name());
+        SmartDashboard.putNumber("Turret/kP", Constants.Turret.MotionMagic.kP);
+        SmartDashboard.putNumber("Turret/kI", Constants.Turret.MotionMagic.kI);
+        SmartDashboard.putNumber("Turret/kD", Constants.Turret.MotionMagic.kD);
+        SmartDashboard.putNumber("Turret/kF", Constants.Turret.MotionMagic.kF);
+        SmartDashboard.putBoolean("Turret/SetGains", false);
     }
 
     public void setSpeed(double speed) {
-        _turretController.set(ControlMode.PercentOutput, speed);
+        _turretOutput.set(ControlMode.PercentOutput, speed);
     }
 
+    /**
+     * Switches PID slot.  Every slot's gains were loaded at startup, so this doesn't wait on the controller.  The slot
+     * is selected every time rather than cached, since a Talon that resets (e.g. in a brownout) comes back on slot 0.
+     */
     public void setControlMode(Control control) {
-        if (control == Control.Position) {
-            _turretController.config_kP(_positionPIDSlot, Constants.Turret.Position.kP, 50);
-            _turretController.config_kI(_positionPIDSlot, Constants.Turret.Position.kI, 50);
-            _turretController.config_kD(_positionPIDSlot, Constants.Turret.Position.kD, 50);
-            _turretController.config_kF(_positionPIDSlot, Constants.Turret.Position.kF, 50);
-            _turretController.selectProfileSlot(_positionPIDSlot, 0);
-        } else if (control == Control.Velocity) {
-            _turretController.config_kP(_velocityPIDSlot, Constants.Turret.Velocity.kP, 50);
-            _turretController.config_kI(_velocityPIDSlot, Constants.Turret.Velocity.kI, 50);
-            _turretController.config_kD(_velocityPIDSlot, Constants.Turret.Velocity.kD, 50);
-            _turretController.config_kF(_velocityPIDSlot, Constants.Turret.Velocity.kF, 50);
-            _turretController.selectProfileSlot(_velocityPIDSlot, 0);
-        } else if (control == Control.MotionMagic) {
-            _turretController.config_kP(_motionMagicPIDSlot, Constants.Turret.MotionMagic.kP, 50);
-            _turretController.config_kI(_motionMagicPIDSlot, Constants.Turret.MotionMagic.kI, 50);
-            _turretController.config_kD(_motionMagicPIDSlot, Constants.Turret.MotionMagic.kD, 50);
-            _turretController.config_kF(_motionMagicPIDSlot, Constants.Turret.MotionMagic.kF, 50);
-            _turretController.configAllowableClosedloopError(_motionMagicPIDSlot, 0, 50);
-            _turretController.selectProfileSlot(_motionMagicPIDSlot, 0);
+        int slot = getSlot(control);
+        if (slot < 0) {
+            return;
         }
+        _turretController.selectProfileSlot(slot, 0);
     }
 
-    public void setMotionMagicSetpoint(double angle) {
-        if (angle > Constants.Turret.MAX_DEGREES) {
-            angle =  angle - 360;
-        } else if (angle < Constants.Turret.MIN_DEGREES) {
-            angle = angle + 360;
+    /**
+     * Changes a slot's gains at runtime, e.g. from the dashboard.  The config calls run on the ConfigQueue, not the main
+     * loop.
+     */
+    public void setGains(Control control, double kP, double kI, double kD, double kF) {
+        int slot = getSlot(control);
+        if (slot < 0) {
+            return;
+        }
+        ConfigQueue queue = ConfigQueue.getInstance();
+        queue.submit("Turret slot " + slot + " kP", () -> _turretController.config_kP(slot, kP, Constants.CAN.CONFIG_TIMEOUT),
+                () -> _turretController.configGetParameter(ParamEnum.eProfileParamSlot_P, slot, Constants.CAN.CONFIG_TIMEOUT), kP);
+        queue.submit("Turret slot " + slot + " kI", () -> _turretController.config_kI(slot, kI, Constants.CAN.CONFIG_TIMEOUT),
+                () -> _turretController.configGetParameter(ParamEnum.eProfileParamSlot_I, slot, Constants.CAN.CONFIG_TIMEOUT), kI);
+        queue.submit("Turret slot " + slot + " kD", () -> _turretController.config_kD(slot, kD, Constants.CAN.CONFIG_TIMEOUT),
+                () -> _turretController.configGetParameter(ParamEnum.eProfileParamSlot_D, slot, Constants.CAN.CONFIG_TIMEOUT), kD);
+        queue.submit("Turret slot " + slot + " kF", () -> _turretController.config_kF(slot, kF, Constants.CAN.CONFIG_TIMEOUT),
+                () -> _turretController.configGetParameter(ParamEnum.eProfileParamSlot_F, slot, Constants.CAN.CONFIG_TIMEOUT), kF);
+    }
+
+    private void loadGains(int slot, double kP, double kI, double kD, double kF) {
+        _turretController.config_kP(slot, kP, 50);
+        _turretController.config_kI(slot, kI, 50);
+        _turretController.config_kD(slot, kD, 50);
+        _turretController.config_kF(slot, kF, 50);
+    }
+
+    private int getSlot(Control control) {
+        switch (control) {
+            case Position:
+                return _positionPIDSlot;
+            case Velocity:
+                return _velocityPIDSlot;
+            case MotionMagic:
+                return _motionMagicPIDSlot;
+            default:
+                return -1;
         }
+    }
+
+    public void setMotionMagicSetpoint(double angle) {
+        angle = _wrapPlanner.plan(angle, getPositionDegrees(), getVelocityDegreesPerSecond());
         angle = Helpers.limit(angle, Constants.Turret.MIN_DEGREES, Constants.Turret.MAX_DEGREES);
         _setpoint = angle;
-        _turretController.set(ControlMode.MotionMagic, (_setpoint/Constants.Turret.TICKS_TO_DEGREES));
+        _turretOutput.set(ControlMode.MotionMagic, (_setpoint/Constants.Turret.TICKS_TO_DEGREES));
     }
 
     public boolean isAtSetpoint() {
@@ -151,6 +206,7 @@ public class Turret extends OutliersSubsystem {
         } else if (_driveTrain.getPose().getTranslation().getX() < 0) {
             _limelight.setPipeline(Limelight.Pipeline.Wide);
         }
+        _targeting.update();
     }
 
     public void updateDashboard() {
@@ -158,6 +214,23 @@ public class Turret extends OutliersSubsystem {
         metric("Absolute Pos", getAbsoluteEncoderPosition());
         metric("forward", _turretController.isFwdLimitSwitchClosed());
         metric("rev", _turretController.isRevLimitSwitchClosed());
+        _targeting.updateDashboard();
+        _wrapPlanner.updateDashboard();
+        if (SmartDashboard.getBoolean("Turret/SetGains", false)) {
+            SmartDashboard.putBoolean("Turret/SetGains", false);
+            String name = SmartDashboard.getString("Turret/GainControl", Control.MotionMagic.name());
+            try {
+                Control control = Control.valueOf(name);
+                double kP = SmartDashboard.getNumber("Turret/kP", 0);
+                double kI = SmartDashboard.getNumber("Turret/kI", 0);
+                double kD = SmartDashboard.getNumber("Turret/kD", 0);
+                double kF = SmartDashboard.getNumber("Turret/kF", 0);
+                info("Setting " + control + " gains to P " + kP + " I " + kI + " D " + kD + " F " + kF);
+                setGains(control, kP, kI, kD, kF);
+            } catch (IllegalArgumentException e) {
+                warn("No turret control mode " + name);
+            }
+        }
     }
 
     public void zeroSensors() {
@@ -182,6 +255,14 @@ public class Turret extends OutliersSubsystem {
         return _turretController.getSelectedSensorVelocity(0);
     }
 
+    public double getVelocityDegreesPerSecond() {
+        return getVelocityTicksPer100ms() * Constants.Turret.TICKS_TO_DEGREES * 10;
+    }
+
+    public double getSupplyCurrent() {
+        return _turretController == null ? 0 : _turretController.getSupplyCurrent();
+    }
+
     //taken from 254
     public int getAbsoluteEncoderRawPosition() {
         int rawABS = _turretController.getSensorCollection().getPulseWidthPosition();
@@ -201,6 +282,10 @@ public class Turret extends OutliersSubsystem {
         return new TurretPose(getPositionDegrees());
     }
 
+    public TurretTargetingService getTargeting() {
+        return _targeting;
+    }
+
     public double getManualOffset() {
         return _manualOffset;
     }
@@ -0,0 +1,84 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import org.frc5687.infiniterecharge.robot.Constants;
+
+/**
+ * Keeps count of the balls in the hopper.  A ball arriving at the entry sensor adds one and a shot seen by the
+ * ShotDetector takes one away.  An arrival within DEBOUNCE of the last departure is the same ball bouncing on the
+ * sensor and isn't counted.  The count is held between the number of sensors currently blocked (which can't be
+ * wrong) and CAPACITY.
+ *
+ * Arrivals come in on the IR interrupt thread and shots on the main thread, so everything here is synchronized.
+ */
+public class BallCounter extends OutliersProxy {
+    private DigitalIR _entry;
+
+    private int _count = 0;
+    private int _seenArrivals = 0;
+    private int _ignored = 0;
+    private int _jams = 0;
+
+    public BallCounter(DigitalIR entry) {
+        _entry = entry;
+        _seenArrivals = entry.getArrivals();
+    }
+
+    /**
+     * Call on every edge of the entry sensor.
+     */
+    public synchronized void onEntryEdge() {
+        int arrivals = _entry.getArrivals();
+        if (arrivals == _seenArrivals) {
+            return;
+        }
+        _seenArrivals = arrivals;
+        double departure = _entry.getLastDeparture();
+        if (!Double.isNaN(departure) && _entry.getLastArrival() - departure < Constants.BallCounter.DEBOUNCE) {
+            _ignored++;
+            return;
+        }
+        setCount(_count + 1);
+    }
+
+    public synchronized void onShot() {
+        setCount(_count - 1);
+    }
+
+    public synchronized void onJam() {
+        _jams++;
+        warn("Jam at the entry with " + _count + " balls");
+    }
+
+    /**
+     * Raises the count to at least the number of balls we can see.
+     */
+    public synchronized void atLeast(int seen) {
+        if (_count < seen) {
+            setCount(seen);
+        }
+    }
+
+    public synchronized void setCount(int count) {
+        _count = Math.max(0, Math.min(Constants.BallCounter.CAPACITY, count));
+    }
+
+    public synchronized int getCount() {
+        return _count;
+    }
+
+    public synchronized boolean isFull() {
+        return _count >= Constants.BallCounter.CAPACITY;
+    }
+
+    public synchronized int getJams() {
+        return _jams;
+    }
+
+    @Override
+    public synchronized void updateDashboard() {
+        metric("Count", _count);
+        metric("Full", isFull());
+        metric("Ignored", _ignored);
+        metric("Jams", _jams);
+    }
+}
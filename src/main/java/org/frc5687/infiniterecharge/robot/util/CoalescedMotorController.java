@@ -0,0 +1,33 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+/**
+ * Write-coalescing wrapper for the CTRE controllers (TalonSRX, TalonFX, VictorSPX).  Phoenix resends the control
+ * frame on its own schedule, so what we save here is the JNI call and setpoint update, and there's no need for a
+ * keep-alive by default.
+ */
+public class CoalescedMotorController extends WriteCoalescer {
+    private BaseMotorController _controller;
+
+    public CoalescedMotorController(String name, BaseMotorController controller) {
+        this(name, controller, Constants.CAN.CTRE_KEEP_ALIVE);
+    }
+
+    public CoalescedMotorController(String name, BaseMotorController controller, long keepAliveMillis) {
+        super(name, keepAliveMillis);
+        _controller = controller;
+    }
+
+    public void set(ControlMode mode, double value) {
+        if (needsWrite(mode, value)) {
+            _controller.set(mode, value);
+        }
+    }
+
+    public BaseMotorController getController() {
+        return _controller;
+    }
+}
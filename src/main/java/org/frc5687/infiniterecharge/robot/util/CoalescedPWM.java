@@ -0,0 +1,41 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Servo;
+import edu.wpi.first.wpilibj.Spark;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Write-coalescing wrapper for PWM outputs (Servo positions and Spark/Blinkin speeds).  The FPGA holds the last
+ * value, so by default there is no keep-alive.
+ */
+public class CoalescedPWM extends WriteCoalescer {
+    private DoubleConsumer _output;
+
+    public CoalescedPWM(String name, Servo servo) {
+        this(name, servo::set, 0);
+    }
+
+    public CoalescedPWM(String name, Spark spark) {
+        this(name, spark::set, 0);
+    }
+
+    public CoalescedPWM(String name, Servo servo, long keepAliveMillis) {
+        this(name, servo::set, keepAliveMillis);
+    }
+
+    public CoalescedPWM(String name, Spark spark, long keepAliveMillis) {
+        this(name, spark::set, keepAliveMillis);
+    }
+
+    private CoalescedPWM(String name, DoubleConsumer output, long keepAliveMillis) {
+        super(name, keepAliveMillis);
+        _output = output;
+    }
+
+    public void set(double value) {
+        if (needsWrite(null, value)) {
+            _output.accept(value);
+        }
+    }
+}
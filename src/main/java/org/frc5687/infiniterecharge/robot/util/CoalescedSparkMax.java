@@ -0,0 +1,43 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import com.revrobotics.CANSparkMax;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+/**
+ * Write-coalescing wrapper for a CANSparkMax.  Every set() on a SparkMax is a setpoint frame on the bus, so each
+ * suppressed write is a CAN frame saved.  The keep-alive makes sure a controller that missed a frame (or was
+ * disabled and re-enabled) gets its setpoint again.
+ */
+public class CoalescedSparkMax extends WriteCoalescer {
+    private CANSparkMax _controller;
+
+    public CoalescedSparkMax(String name, CANSparkMax controller) {
+        this(name, controller, Constants.CAN.SPARK_KEEP_ALIVE);
+    }
+
+    public CoalescedSparkMax(String name, CANSparkMax controller, long keepAliveMillis) {
+        super(name, keepAliveMillis);
+        _controller = controller;
+    }
+
+    public void set(double speed) {
+        if (needsWrite(Mode.PercentOutput, speed)) {
+            _controller.set(speed);
+        }
+    }
+
+    public void setVoltage(double volts) {
+        if (needsWrite(Mode.Voltage, volts)) {
+            _controller.setVoltage(volts);
+        }
+    }
+
+    public CANSparkMax getController() {
+        return _controller;
+    }
+
+    private enum Mode {
+        PercentOutput,
+        Voltage
+    }
+}
@@ -0,0 +1,284 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import com.revrobotics.ColorSensorV3;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.util.Color;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.Spinner.MatchedColor;
+
+import java.util.function.Function;
+
+/**
+ * Owns the spinner's color sensor.  A single thread reads it every SENSOR_SAMPLE_PERIOD_SECONDS, faster than the
+ * sensor measures (SENSOR_MEASUREMENT_PERIOD_SECONDS), since a sleep loop drifts against the sensor's own clock and
+ * would otherwise sometimes read one measurement twice and sometimes skip one.  A read with the same raw values as the
+ * last is the same measurement and is dropped, unless it's been long enough that the sensor must have measured again.
+ * The last HISTORY new readings are kept, timestamped, in a ring buffer.  Nothing else touches the I2C bus for it;
+ * callers get the cached latest reading.
+ *
+ * Wedges are counted here as well.  A color only becomes the stable color once it's been seen DEBOUNCE_SAMPLES times
+ * in a row, which drops the blends at wedge edges and single bad reads.  Each change of stable color is then checked
+ * against the order of the wedges on the control panel: a step to the next wedge counts one, a jump to the opposite
+ * color means we missed a wedge and counts two, and a step back against the direction we've been turning (a flicker
+ * on an edge) takes one off again so it isn't counted twice.
+ */
+public class ColorSensorReader extends OutliersProxy {
+    // Wedge colors in the order they go round the control panel
+    private static final MatchedColor[] WHEEL = {MatchedColor.red, MatchedColor.green, MatchedColor.blue, MatchedColor.yellow};
+
+    private ColorSensorV3 _sensor;
+    private Function<Color, MatchedColor> _classifier;
+    private Thread _thread;
+
+    private Reading[] _history = new Reading[Constants.Spinner.HISTORY];
+    private int _next = 0;
+    private Reading _latest;
+
+    private MatchedColor _stable = MatchedColor.unknown;
+    private MatchedColor _candidate = MatchedColor.unknown;
+    private int _candidateSamples = 0;
+    private int _direction = 0;
+    private int _wedgeCount = 0;
+    private int _skipped = 0;
+    private int _reversed = 0;
+    private long _samples = 0;
+    private long _repeats = 0;
+    private long _errors = 0;
+
+    /**
+     * @param classifier matches a normalized reading to a wedge color
+     */
+    public ColorSensorReader(ColorSensorV3 sensor, Function<Color, MatchedColor> classifier) {
+        _sensor = sensor;
+        _classifier = classifier;
+    }
+
+    /**
+     * Starts the reader thread.
+     */
+    public void start() {
+        if (_thread != null) {
+            return;
+        }
+        _thread = new Thread(this::run, "ColorSensorReader");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    private void run() {
+        long period = Math.round(Constants.Spinner.SENSOR_SAMPLE_PERIOD_SECONDS * 1000);
+        long next = System.currentTimeMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            sample();
+            next += period;
+            long wait = next - System.currentTimeMillis();
+            if (wait < 0) {
+                // Fell behind (I2C hiccup); don't try to catch up
+                next = System.currentTimeMillis();
+                continue;
+            }
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the sensor, keeping the reading if it's a new measurement.  Called by the reader thread; only call it
+     * directly if the thread isn't running.
+     */
+    public void sample() {
+        Reading reading;
+        try {
+            ColorSensorV3.RawColor raw = _sensor.getRawColor();
+            int proximity = _sensor.getProximity();
+            reading = new Reading(Timer.getFPGATimestamp(), raw, proximity);
+        } catch (Exception e) {
+            synchronized (this) {
+                _errors++;
+            }
+            return;
+        }
+        synchronized (this) {
+            if (isRepeat(reading)) {
+                _repeats++;
+                return;
+            }
+        }
+        MatchedColor color = _classifier.apply(reading.getColor());
+        reading.setMatchedColor(color);
+        synchronized (this) {
+            _history[_next] = reading;
+            _next = (_next + 1) % _history.length;
+            _latest = reading;
+            _samples++;
+            debounce(color);
+        }
+    }
+
+    private boolean isRepeat(Reading reading) {
+        if (_latest == null) {
+            return false;
+        }
+        ColorSensorV3.RawColor last = _latest.getRaw();
+        ColorSensorV3.RawColor raw = reading.getRaw();
+        // Half a period of slack for jitter in our reads
+        return raw.red == last.red && raw.green == last.green && raw.blue == last.blue && raw.ir == last.ir
+                && reading.getTime() - _latest.getTime() < 1.5 * Constants.Spinner.SENSOR_MEASUREMENT_PERIOD_SECONDS;
+    }
+
+    private void debounce(MatchedColor color) {
+        if (color == MatchedColor.unknown) {
+            _candidateSamples = 0;
+            return;
+        }
+        if (color != _candidate) {
+            _candidate = color;
+            _candidateSamples = 0;
+        }
+        _candidateSamples++;
+        if (_candidateSamples >= Constants.Spinner.DEBOUNCE_SAMPLES && _candidate != _stable) {
+            transition(_stable, _candidate);
+            _stable = _candidate;
+        }
+    }
+
+    private void transition(MatchedColor from, MatchedColor to) {
+        if (from == MatchedColor.unknown) {
+            return;
+        }
+        int step = (indexOf(to) - indexOf(from) + WHEEL.length) % WHEEL.length;
+        if (step == 2) {
+            // Opposite color: two wedges went by whichever way we're turning
+            _wedgeCount += 2;
+            _skipped++;
+            return;
+        }
+        int direction = step == 1 ? 1 : -1;
+        if (_direction == 0) {
+            _direction = direction;
+        }
+        if (direction == _direction) {
+            _wedgeCount++;
+        } else {
+            _wedgeCount--;
+            _reversed++;
+        }
+    }
+
+    private static int indexOf(MatchedColor color) {
+        for (int i = 0; i < WHEEL.length; i++) {
+            if (WHEEL[i] == color) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Zeroes the wedge count and forgets the direction of rotation.  The stable color is kept, so the first wedge
+     * edge after a reset counts.
+     */
+    public synchronized void resetWedgeCount() {
+        _wedgeCount = 0;
+        _direction = 0;
+        _skipped = 0;
+        _reversed = 0;
+    }
+
+    public synchronized int getWedgeCount() {
+        return _wedgeCount;
+    }
+
+    /**
+     * @return the debounced color, or the latest reading's color if nothing has been stable yet
+     */
+    public synchronized MatchedColor getColor() {
+        if (_stable != MatchedColor.unknown || _latest == null) {
+            return _stable;
+        }
+        return _latest.getMatchedColor();
+    }
+
+    /**
+     * @return the latest reading, or null if there hasn't been one
+     */
+    public synchronized Reading getLatest() {
+        return _latest;
+    }
+
+    /**
+     * @param ago 0 for the latest reading, 1 for the one before, and so on, up to HISTORY - 1
+     * @return the reading, or null if we don't have one that old
+     */
+    public synchronized Reading getReading(int ago) {
+        if (ago < 0 || ago >= _history.length) {
+            return null;
+        }
+        return _history[(_next - 1 - ago + 2 * _history.length) % _history.length];
+    }
+
+    @Override
+    public synchronized void updateDashboard() {
+        metric("Samples", _samples);
+        metric("Repeats", _repeats);
+        metric("Errors", _errors);
+        metric("StableColor", _stable.toString());
+        metric("WedgeCount", _wedgeCount);
+        metric("Skipped", _skipped);
+        metric("Reversed", _reversed);
+        if (_latest != null) {
+            metric("AgeMillis", (Timer.getFPGATimestamp() - _latest.getTime()) * 1000);
+        }
+    }
+
+    public static class Reading {
+        private double _time;
+        private ColorSensorV3.RawColor _raw;
+        private int _proximity;
+        private Color _color;
+        private MatchedColor _matchedColor = MatchedColor.unknown;
+
+        Reading(double time, ColorSensorV3.RawColor raw, int proximity) {
+            _time = time;
+            _raw = raw;
+            _proximity = proximity;
+            // Normalized the same way as ColorSensorV3.getColor, without reading the sensor again
+            double magnitude = raw.red + raw.green + raw.blue;
+            if (magnitude > 0) {
+                _color = new Color(raw.red / magnitude, raw.green / magnitude, raw.blue / magnitude);
+            } else {
+                _color = new Color(0, 0, 0);
+            }
+        }
+
+        void setMatchedColor(MatchedColor matchedColor) {
+            _matchedColor = matchedColor;
+        }
+
+        /**
+         * @return FPGA seconds the reading was taken
+         */
+        public double getTime() {
+            return _time;
+        }
+
+        public ColorSensorV3.RawColor getRaw() {
+            return _raw;
+        }
+
+        public int getProximity() {
+            return _proximity;
+        }
+
+        public Color getColor() {
+            return _color;
+        }
+
+        public MatchedColor getMatchedColor() {
+            return _matchedColor;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import com.ctre.phoenix.ErrorCode;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs controller config calls (which block for up to their timeout waiting on the controller) on a background
+ * thread, so changing a gain at runtime never stalls the main loop.  Each change is read back from the controller and
+ * retried up to CONFIG_RETRIES times if it didn't take.  Configuration at startup can stay inline; this is for later.
+ */
+public class ConfigQueue extends OutliersProxy {
+    private static ConfigQueue _instance;
+
+    public static ConfigQueue getInstance() {
+        if (_instance == null) {
+            _instance = new ConfigQueue();
+        }
+        return _instance;
+    }
+
+    private ExecutorService _executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ConfigQueue");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private AtomicInteger _pending = new AtomicInteger();
+    private AtomicInteger _applied = new AtomicInteger();
+    private AtomicInteger _retried = new AtomicInteger();
+    private AtomicInteger _failed = new AtomicInteger();
+
+    private ConfigQueue() {
+    }
+
+    /**
+     * Queues a config change.
+     *
+     * @param name what's being set, for logging
+     * @param apply makes the config call, returning its error code
+     * @param readBack reads the value back from the controller
+     * @param expected what readBack should return once the change has taken
+     */
+    public void submit(String name, Supplier<ErrorCode> apply, DoubleSupplier readBack, double expected) {
+        _pending.incrementAndGet();
+        _executor.execute(() -> {
+            try {
+                for (int attempt = 1; attempt <= Constants.CAN.CONFIG_RETRIES; attempt++) {
+                    ErrorCode error = apply.get();
+                    if (error == ErrorCode.OK) {
+                        double actual = readBack.getAsDouble();
+                        if (Math.abs(actual - expected) <= Constants.CAN.CONFIG_VERIFY_TOLERANCE * Math.max(1, Math.abs(expected))) {
+                            _applied.incrementAndGet();
+                            return;
+                        }
+                        warn(name + " reads back " + actual + " instead of " + expected);
+                    } else {
+                        warn(name + " returned " + error);
+                    }
+                    _retried.incrementAndGet();
+                }
+                error("Unable to set " + name + " to " + expected);
+                _failed.incrementAndGet();
+            } catch (Exception e) {
+                error("Exception setting " + name + ": " + e.getMessage());
+                _failed.incrementAndGet();
+            } finally {
+                _pending.decrementAndGet();
+            }
+        });
+    }
+
+    public int getPending() {
+        return _pending.get();
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Pending", _pending.get());
+        metric("Applied", _applied.get());
+        metric("Retried", _retried.get());
+        metric("Failed", _failed.get());
+    }
+}
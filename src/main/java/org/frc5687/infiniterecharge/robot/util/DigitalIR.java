@@ -1,12 +1,83 @@
 package org.frc5687.infiniterecharge.robot.util;
 
 import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.InterruptHandlerFunction;
 
 public class DigitalIR extends DigitalInput {
+    // Edge bits in the interrupt mask (as InterruptableSensorBase.WaitResult)
+    private static final int RISING = 0x1;
+    private static final int FALLING = 0x100;
+
+    private Runnable _listener;
+    private volatile double _lastArrival = Double.NaN;
+    private volatile double _lastDeparture = Double.NaN;
+    private volatile int _arrivals = 0;
 
     public DigitalIR(int channel) {super(channel);}
 
     public boolean get() {
         return !super.get();
     }
+
+    /**
+     * Calls listener from the interrupt thread on every edge, with the edge timestamped by the FPGA.  The sensor pulls
+     * low when it sees a ball, so a falling edge is a ball arriving and a rising edge is it leaving.
+     */
+    public void enableEdgeInterrupts(Runnable listener) {
+        _listener = listener;
+        requestInterrupts(new InterruptHandlerFunction<Object>() {
+            @Override
+            public void interruptFired(int interruptAssertedMask, Object param) {
+                onEdge(interruptAssertedMask);
+            }
+        });
+        setUpSourceEdge(true, true);
+        enableInterrupts();
+    }
+
+    private void onEdge(int mask) {
+        if ((mask & FALLING) != 0) {
+            _lastArrival = readFallingTimestamp();
+            _arrivals++;
+        }
+        if ((mask & RISING) != 0) {
+            _lastDeparture = readRisingTimestamp();
+        }
+        if (_listener != null) {
+            _listener.run();
+        }
+    }
+
+    /**
+     * @return FPGA seconds a ball last arrived, or NaN
+     */
+    public double getLastArrival() {
+        return _lastArrival;
+    }
+
+    /**
+     * @return FPGA seconds a ball last left, or NaN
+     */
+    public double getLastDeparture() {
+        return _lastDeparture;
+    }
+
+    /**
+     * @return balls seen arriving since interrupts were enabled
+     */
+    public int getArrivals() {
+        return _arrivals;
+    }
+
+    /**
+     * @return FPGA seconds of the latest edge either way, or NaN
+     */
+    public double getLastEdge() {
+        double arrival = _lastArrival;
+        double departure = _lastDeparture;
+        if (Double.isNaN(arrival)) {
+            return departure;
+        }
+        return Double.isNaN(departure) ? arrival : Math.max(arrival, departure);
+    }
 }
@@ -0,0 +1,138 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.RobotController;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.subsystems.Shifter;
+import org.frc5687.infiniterecharge.robot.subsystems.Shooter;
+import org.frc5687.infiniterecharge.robot.subsystems.Turret;
+
+/**
+ * Scales drivetrain output from measured currents and battery voltage.  Drive, shooter and turret currents come from
+ * the controllers themselves; the PDP is only used for the total.  Three limits are applied:
+ *  - traction: each side's motor current is kept under the current where the wheels slip in the current gear,
+ *  - budget: drive current is kept inside what's left of TOTAL_CURRENT_BUDGET after everything else, and while
+ *    shooting the flywheel and turret reserves come off the top first,
+ *  - brownout: as the battery sags from WARN_VOLTAGE to MIN_VOLTAGE, drive output is capped down to MIN_SCALE.
+ * Currents arrive in status frames slower than we loop, so a limit only cuts its scale when a new reading comes in,
+ * and then straight to what that reading calls for given the scale it was measured at.  Scales recover by
+ * RECOVERY_RATE per cycle once back under the limit.
+ */
+public class DriveCurrentLimiter extends OutliersProxy {
+    private PDP _pdp;
+    private DriveTrain _driveTrain;
+    private Shooter _shooter;
+    private Turret _turret;
+
+    private Limit _leftLimit = new Limit();
+    private Limit _rightLimit = new Limit();
+    private Limit _budgetLimit = new Limit();
+    private double _voltageCap = 1;
+
+    private double _leftCurrent;
+    private double _rightCurrent;
+    private double _totalCurrent;
+    private double _driveAllowance;
+    private boolean _shooting;
+
+    public DriveCurrentLimiter(PDP pdp, DriveTrain driveTrain, Shooter shooter, Turret turret) {
+        _pdp = pdp;
+        _driveTrain = driveTrain;
+        _shooter = shooter;
+        _turret = turret;
+    }
+
+    /**
+     * Call once per cycle, before the drivetrain writes its outputs.
+     */
+    public void update(Shifter.Gear gear) {
+        _leftCurrent = _driveTrain.getLeftCurrent();
+        _rightCurrent = _driveTrain.getRightCurrent();
+        double driveCurrent = _driveTrain.getSupplyCurrent();
+        double shooterCurrent = _shooter == null ? 0 : _shooter.getSupplyCurrent();
+        double turretCurrent = _turret == null ? 0 : _turret.getSupplyCurrent();
+        _totalCurrent = 0;
+        for (int channel = 0; channel < 16; channel++) {
+            _totalCurrent += _pdp.getCurrent(channel);
+        }
+
+        // Traction, per side.  Two motors per side.  Motor (not supply) current, since that's what sets wheel torque.
+        double tractionLimit = 2 * (gear == Shifter.Gear.HIGH
+                ? Constants.CurrentLimiter.TRACTION_CURRENT_HIGH_GEAR
+                : Constants.CurrentLimiter.TRACTION_CURRENT_LOW_GEAR);
+        _leftLimit.update(_leftCurrent, tractionLimit, _leftCurrent);
+        _rightLimit.update(_rightCurrent, tractionLimit, _rightCurrent);
+
+        // Budget.  While shooting, the flywheel and turret get their reserve whether they're drawing it yet or not.
+        _shooting = _shooter != null && _shooter.isShooting();
+        double reserved = _shooting
+                ? Math.max(shooterCurrent, Constants.CurrentLimiter.SHOOTER_RESERVE) + Math.max(turretCurrent, Constants.CurrentLimiter.TURRET_RESERVE)
+                : shooterCurrent + turretCurrent;
+        double others = Math.max(0, _totalCurrent - driveCurrent - shooterCurrent - turretCurrent);
+        _driveAllowance = Math.max(0, Constants.CurrentLimiter.TOTAL_CURRENT_BUDGET - others - reserved);
+        // The supply estimate moves with the duty cycle too, so only a new motor current reading counts as fresh.
+        _budgetLimit.update(driveCurrent, _driveAllowance, _leftCurrent + _rightCurrent);
+
+        // Brownout.
+        double voltage = RobotController.getBatteryVoltage();
+        _voltageCap = Helpers.limit(
+                (voltage - Constants.CurrentLimiter.MIN_VOLTAGE) / (Constants.CurrentLimiter.WARN_VOLTAGE - Constants.CurrentLimiter.MIN_VOLTAGE),
+                Constants.CurrentLimiter.MIN_SCALE, 1);
+    }
+
+    public double getLeftScale() {
+        return Math.min(_leftLimit.getScale(), Math.min(_budgetLimit.getScale(), _voltageCap));
+    }
+
+    public double getRightScale() {
+        return Math.min(_rightLimit.getScale(), Math.min(_budgetLimit.getScale(), _voltageCap));
+    }
+
+    public boolean isLimiting() {
+        return getLeftScale() < 1 || getRightScale() < 1;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Current/Left", _leftCurrent);
+        metric("Current/Right", _rightCurrent);
+        metric("Current/Total", _totalCurrent);
+        metric("DriveAllowance", _driveAllowance);
+        metric("Shooting", _shooting);
+        metric("Scale/LeftTraction", _leftLimit.getScale());
+        metric("Scale/RightTraction", _rightLimit.getScale());
+        metric("Scale/Budget", _budgetLimit.getScale());
+        metric("Scale/Voltage", _voltageCap);
+        metric("Limiting", isLimiting());
+    }
+
+    /**
+     * One current limit's scale.  The scale in effect until a reading arrives is what the motors were running at
+     * when it was measured, so a new reading over the limit sets the scale to that times limit / current.  Repeats of
+     * the same reading (the frame hasn't updated yet) don't cut it again.
+     */
+    private static class Limit {
+        private double _scale = 1;
+        private double _lastSample = Double.NaN;
+
+        /**
+         * @param sample the raw reading, compared with the last one to tell whether it's new
+         */
+        void update(double current, double limit, double sample) {
+            boolean fresh = sample != _lastSample;
+            _lastSample = sample;
+            if (current > limit && current > 0) {
+                if (fresh) {
+                    _scale = _scale * limit / current;
+                }
+            } else {
+                _scale += Constants.CurrentLimiter.RECOVERY_RATE;
+            }
+            _scale = Helpers.limit(_scale, Constants.CurrentLimiter.MIN_SCALE, 1);
+        }
+
+        double getScale() {
+            return _scale;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.controller.PIDController;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.Shifter;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Shapes driver (or command) speed and rotation into left and right motor outputs.  The work that used to be inlined
+ * in DriveTrain.cheesyDrive is split into stages that run in order over one preallocated DriveSignal.  Stages can be
+ * reordered with setOrder and switched on or off per gear.  Nothing in process() allocates, and the gear is looked up
+ * once per call by the caller.  DriveSignalPipelineTest covers each stage; DriveSignalPipelineBenchmark (gradlew
+ * benchmark) measures what each one costs.
+ */
+public class DriveSignalPipeline {
+    private static final Shifter.Gear[] GEARS = Shifter.Gear.values();
+
+    private DriveSignal _signal = new DriveSignal();
+
+    private HeadingHold _headingHold;
+    private SpeedLimit _speedLimit;
+    private Deadband _deadband;
+    private Sensitivity _sensitivity;
+    private SlewRateLimit _slewRateLimit;
+    private Mix _mix;
+    private Desaturate _desaturate;
+
+    private Stage[] _stages;
+
+    public DriveSignalPipeline(DoubleSupplier yaw, PIDController angleController) {
+        _headingHold = new HeadingHold(yaw, angleController);
+        _speedLimit = new SpeedLimit(Constants.DriveTrain.SPEED_LIMIT);
+        _deadband = new Deadband(Constants.DriveTrain.DEADBAND);
+        _sensitivity = new Sensitivity();
+        _slewRateLimit = new SlewRateLimit(Constants.DriveTrain.RAMP_INCREMENT_LOWGEAR);
+        _mix = new Mix();
+        _desaturate = new Desaturate();
+        _stages = new Stage[] { _headingHold, _speedLimit, _deadband, _sensitivity, _slewRateLimit, _mix, _desaturate };
+    }
+
+    /**
+     * Replaces the stage order.  Stages left out are not run.
+     */
+    public void setOrder(Stage... stages) {
+        _stages = stages;
+    }
+
+    /**
+     * Runs the stages for the given input and gear.  The returned signal is reused on the next call.
+     */
+    public DriveSignal process(double speed, double rotation, boolean creep, boolean override, Shifter.Gear gear) {
+        _signal.reset(speed, rotation, creep, override, gear);
+        for (Stage stage : _stages) {
+            stage.run(_signal);
+        }
+        return _signal;
+    }
+
+    public HeadingHold getHeadingHold() { return _headingHold; }
+    public SpeedLimit getSpeedLimit() { return _speedLimit; }
+    public Deadband getDeadband() { return _deadband; }
+    public Sensitivity getSensitivity() { return _sensitivity; }
+    public SlewRateLimit getSlewRateLimit() { return _slewRateLimit; }
+    public Mix getMix() { return _mix; }
+    public Desaturate getDesaturate() { return _desaturate; }
+
+    /**
+     * The signal passed from stage to stage.
+     */
+    public static class DriveSignal {
+        private double _speed;
+        private double _rotation;
+        private double _left;
+        private double _right;
+        private boolean _creep;
+        private boolean _override;
+        private boolean _turnInPlace;
+        private boolean _holdingHeading;
+        private Shifter.Gear _gear;
+        private boolean _highGear;
+
+        private void reset(double speed, double rotation, boolean creep, boolean override, Shifter.Gear gear) {
+            _speed = speed;
+            _rotation = Helpers.limit(rotation, 1);
+            _left = 0;
+            _right = 0;
+            _creep = creep;
+            _override = override;
+            _turnInPlace = false;
+            _holdingHeading = false;
+            _gear = gear;
+            _highGear = gear == Shifter.Gear.HIGH;
+        }
+
+        public double getSpeed() { return _speed; }
+        public double getRotation() { return _rotation; }
+        public double getLeft() { return _left; }
+        public double getRight() { return _right; }
+        public boolean isHoldingHeading() { return _holdingHeading; }
+        public Shifter.Gear getGear() { return _gear; }
+    }
+
+    /**
+     * Base class for the stages.  By default a stage runs in every gear.
+     */
+    public abstract static class Stage {
+        private boolean[] _enabled = new boolean[GEARS.length];
+
+        protected Stage() {
+            for (int i = 0; i < _enabled.length; i++) {
+                _enabled[i] = true;
+            }
+        }
+
+        /**
+         * Runs this stage only in the listed gears.  UNKNOWN is treated like LOW throughout the drivetrain, so it is
+         * enabled along with LOW.
+         */
+        public Stage enableIn(Shifter.Gear... gears) {
+            for (int i = 0; i < _enabled.length; i++) {
+                _enabled[i] = false;
+            }
+            for (Shifter.Gear gear : gears) {
+                _enabled[gear.ordinal()] = true;
+                if (gear == Shifter.Gear.LOW) {
+                    _enabled[Shifter.Gear.UNKNOWN.ordinal()] = true;
+                }
+            }
+            return this;
+        }
+
+        public Stage disable() {
+            return enableIn();
+        }
+
+        public boolean isEnabledIn(Shifter.Gear gear) {
+            return _enabled[gear.ordinal()];
+        }
+
+        private void run(DriveSignal signal) {
+            if (!_enabled[signal._gear.ordinal()]) {
+                return;
+            }
+            apply(signal);
+        }
+
+        protected abstract void apply(DriveSignal signal);
+    }
+
+    /**
+     * Holds the current heading while driving straight with no rotation input.
+     */
+    public static class HeadingHold extends Stage {
+        private DoubleSupplier _yaw;
+        private PIDController _controller;
+        private boolean _holding = false;
+        private double _targetAngle;
+
+        private HeadingHold(DoubleSupplier yaw, PIDController controller) {
+            _yaw = yaw;
+            _controller = controller;
+        }
+
+        @Override
+        protected void apply(DriveSignal signal) {
+            if (signal._rotation != 0 || signal._speed == 0) {
+                _holding = false;
+            } else if (!_holding) {
+                // We've just started "driving straight"
+                _holding = true;
+                _targetAngle = _yaw.getAsDouble();
+                _controller.setSetpoint(_targetAngle);
+                _controller.reset();
+            } else {
+                signal._rotation = Helpers.limit(_controller.calculate(_yaw.getAsDouble()), -Constants.DriveStraight.MAX_HOLD_ROTATION, Constants.DriveStraight.MAX_HOLD_ROTATION);
+            }
+            signal._holdingHeading = _holding;
+        }
+
+        public boolean isHolding() { return _holding; }
+        public double getTargetAngle() { return _targetAngle; }
+    }
+
+    public static class SpeedLimit extends Stage {
+        private double _limit;
+
+        private SpeedLimit(double limit) {
+            _limit = limit;
+        }
+
+        @Override
+        protected void apply(DriveSignal signal) {
+            signal._speed = Helpers.limit(signal._speed, _limit);
+        }
+    }
+
+    /**
+     * Below the deadband we turn in place and ignore the speed input.
+     */
+    public static class Deadband extends Stage {
+        private double _deadband;
+
+        private Deadband(double deadband) {
+            _deadband = deadband;
+        }
+
+        @Override
+        protected void apply(DriveSignal signal) {
+            if (signal._speed < _deadband && signal._speed > -_deadband) {
+                signal._turnInPlace = true;
+                signal._speed = 0;
+            }
+        }
+    }
+
+    /**
+     * Cubic sensitivity curves (see Helpers.applySensitivityFactor) from lookup tables built once for each gear.
+     */
+    public static class Sensitivity extends Stage {
+        private double[] _speedTable;
+        private double[] _rotateLowTable;
+        private double[] _rotateHighTable;
+        private double[] _turnLowTable;
+        private double[] _turnHighTable;
+
+        private Sensitivity() {
+            _speedTable = buildTable(Constants.DriveTrain.SPEED_SENSITIVITY);
+            _rotateLowTable = buildTable(Constants.DriveTrain.ROTATION_SENSITIVITY_LOW_GEAR);
+            _rotateHighTable = buildTable(Constants.DriveTrain.ROTATION_SENSITIVITY_HIGH_GEAR);
+            _turnLowTable = buildTable(Constants.DriveTrain.TURNING_SENSITIVITY_LOW_GEAR);
+            _turnHighTable = buildTable(Constants.DriveTrain.TURNING_SENSITIVITY_HIGH_GEAR);
+        }
+
+        @Override
+        protected void apply(DriveSignal signal) {
+            boolean shapeRotation = !signal._override && !signal._holdingHeading;
+            if (signal._turnInPlace) {
+                if (shapeRotation) {
+                    signal._rotation = lookup(signal._highGear ? _rotateHighTable : _rotateLowTable, signal._rotation);
+                }
+            } else {
+                signal._speed = lookup(_speedTable, signal._speed);
+                if (shapeRotation) {
+                    signal._rotation = lookup(signal._highGear ? _turnHighTable : _turnLowTable, signal._rotation);
+                }
+            }
+        }
+
+        private static double[] buildTable(double factor) {
+            double[] table = new double[Constants.DriveTrain.SENSITIVITY_TABLE_SIZE];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = Helpers.applySensitivityFactor((double) i / (table.length - 1), factor);
+            }
+            return table;
+        }
+
+        /**
+         * The curves are odd, so the table only covers 0..1 and the sign is put back after interpolating.
+         */
+        private static double lookup(double[] table, double input) {
+            double magnitude = Math.min(Math.abs(input), 1) * (table.length - 1);
+            int index = (int) magnitude;
+            if (index >= table.length - 1) {
+                return Math.copySign(table[table.length - 1], input);
+            }
+            double fraction = magnitude - index;
+            return Math.copySign(table[index] + (table[index + 1] - table[index]) * fraction, input);
+        }
+    }
+
+    /**
+     * Limits how fast the speed can change each cycle.
+     */
+    public static class SlewRateLimit extends Stage {
+        private double _increment;
+        private double _previousSpeed = 0;
+
+        private SlewRateLimit(double increment) {
+            _increment = increment;
+        }
+
+        @Override
+        protected void apply(DriveSignal signal) {
+            signal._speed = Helpers.limit(signal._speed, _previousSpeed - _increment, _previousSpeed + _increment);
+            _previousSpeed = signal._speed;
+        }
+    }
+
+    /**
+     * Turns speed and rotation into left and right outputs.
+     */
+    public static class Mix extends Stage {
+        @Override
+        protected void apply(DriveSignal signal) {
+            if (signal._turnInPlace) {
+                double rotation = signal._rotation;
+                if (!signal._holdingHeading) {
+                    rotation = rotation * (signal._creep ? Constants.DriveTrain.CREEP_FACTOR : Constants.DriveTrain.TURN_IN_PLACE_FACTOR);
+                }
+                signal._left = rotation;
+                signal._right = -rotation;
+            } else {
+                double delta = (signal._override || signal._holdingHeading) ? signal._rotation : signal._rotation * Math.abs(signal._speed);
+                signal._left = signal._speed + delta;
+                signal._right = signal._speed - delta;
+            }
+        }
+    }
+
+    /**
+     * Keeps the outputs in -1..1.  With override the turn is kept and the speed gives way, otherwise each side is
+     * clipped.
+     */
+    public static class Desaturate extends Stage {
+        @Override
+        protected void apply(DriveSignal signal) {
+            if (signal._override) {
+                double excess = Math.max(signal._left, signal._right) - 1;
+                if (excess > 0) {
+                    signal._left -= excess;
+                    signal._right -= excess;
+                }
+                excess = Math.min(signal._left, signal._right) + 1;
+                if (excess < 0) {
+                    signal._left -= excess;
+                    signal._right -= excess;
+                }
+            }
+            signal._left = Helpers.limit(signal._left);
+            signal._right = Helpers.limit(signal._right);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Timer;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.Hood;
+import org.frc5687.infiniterecharge.robot.subsystems.Indexer;
+import org.frc5687.infiniterecharge.robot.subsystems.Shooter;
+import org.frc5687.infiniterecharge.robot.subsystems.Turret;
+
+/**
+ * Decides when the next ball goes in.  While shooting (fire, from Shoot and AutoShoot) it cycles:
+ *
+ *  - Waiting: indexer stopped until every gate passes: flywheel at speed and not mid-dip, turret centered on the
+ *    target and not moving, hood at its setpoint, and a limelight frame newer than VISION_MAX_AGE;
+ *  - Feeding: indexer runs at the metered feed speed until the ball hits the flywheel, which is the moment the
+ *    ShotDetector sees the dip start;
+ *  - Recovering: indexer stopped until the flywheel is back within tolerance, then back to Waiting.
+ *
+ * The ShotDetector only hands over the Shot once the flywheel has recovered, so Shots drive the bookkeeping and never
+ * the state.  The feed speed is metered from them: a ball released with the flywheel below tolerance means we fed too
+ * fast, so the speed drops by METER_DOWN; otherwise it creeps back up by METER_UP, to at most ADVANCE_SPEED.
+ * Feed-to-shot and shot-to-shot times are logged for every ball.
+ */
+public class FireControl extends OutliersProxy {
+    private Shooter _shooter;
+    private Turret _turret;
+    private Hood _hood;
+    private Indexer _indexer;
+    private Limelight _limelight;
+
+    private State _state = State.Idle;
+    private String _blocker = "";
+    private double _feedSpeed = Constants.Indexer.ADVANCE_SPEED;
+    private double _feedStart;
+    private double _lastShotTime = Double.NaN;
+    private int _balls;
+    private double _lastCycle;
+    private double _lastFeedToShot;
+    private double _averageCycle;
+    private int _cycles;
+
+    public FireControl(Shooter shooter, Turret turret, Hood hood, Indexer indexer, Limelight limelight) {
+        _shooter = shooter;
+        _turret = turret;
+        _hood = hood;
+        _indexer = indexer;
+        _limelight = limelight;
+        _shooter.getShotDetector().addListener(this::onShot);
+    }
+
+    /**
+     * Runs the indexer as the gates allow.  Call every loop while shooting; the caller must require the indexer.
+     *
+     * @param override feed regardless of the gates
+     */
+    public void fire(boolean override) {
+        switch (_state) {
+            case Idle:
+            case Waiting:
+                if (override || isReady()) {
+                    _state = State.Feeding;
+                    _feedStart = Timer.getFPGATimestamp();
+                } else {
+                    _state = State.Waiting;
+                }
+                break;
+            case Feeding:
+                // With override we keep feeding straight through the dips
+                if (!override && _shooter.getShotDetector().isInDip()) {
+                    _state = State.Recovering;
+                }
+                break;
+            case Recovering:
+                if (override || isFlywheelReady()) {
+                    _state = State.Waiting;
+                }
+                break;
+            default:
+                break;
+        }
+        _indexer.setIndexerSpeed(_state == State.Feeding ? _feedSpeed : 0);
+    }
+
+    /**
+     * Stops the indexer and forgets the volley.
+     */
+    public void stop() {
+        _state = State.Idle;
+        _indexer.setIndexerSpeed(0);
+    }
+
+    /**
+     * @return whether a ball is being fed or we're recovering from one, as opposed to waiting on a gate
+     */
+    public boolean isFiring() {
+        return _state == State.Feeding || _state == State.Recovering;
+    }
+
+    public boolean isReady() {
+        if (!isFlywheelReady()) {
+            _blocker = "Flywheel";
+        } else if (!_turret.isTargetInTolerance() || Math.abs(_turret.getVelocityDegreesPerSecond()) > Constants.FireControl.TURRET_SETTLED_VELOCITY) {
+            _blocker = "Turret";
+        } else if (Math.abs(_hood.getPositionDegrees() - _hood.getSetPoint()) > Constants.FireControl.HOOD_TOLERANCE) {
+            _blocker = "Hood";
+        } else if (_limelight.getFrameAge() > Constants.FireControl.VISION_MAX_AGE) {
+            _blocker = "Vision";
+        } else {
+            _blocker = "";
+        }
+        return _blocker.isEmpty();
+    }
+
+    private boolean isFlywheelReady() {
+        return _shooter.isAtTargetVelocity() && !_shooter.getShotDetector().isInDip();
+    }
+
+    private void onShot(ShotDetector.Shot shot) {
+        // The last ball of a volley can recover after stop(), so this runs in any state
+        _balls++;
+        _lastFeedToShot = shot.getTime() - _feedStart;
+        if (!Double.isNaN(_lastShotTime) && shot.getTime() - _lastShotTime < Constants.FireControl.VOLLEY_GAP) {
+            _lastCycle = shot.getTime() - _lastShotTime;
+            _cycles++;
+            _averageCycle += (_lastCycle - _averageCycle) / _cycles;
+        } else {
+            _lastCycle = 0;
+        }
+        _lastShotTime = shot.getTime();
+
+        if (shot.getReleaseRPM() < shot.getTargetRPM() - Constants.Shooter.RPM_TOLERANCE) {
+            _feedSpeed = Math.max(Constants.FireControl.MIN_FEED_SPEED, _feedSpeed * Constants.FireControl.METER_DOWN);
+        } else {
+            _feedSpeed = Math.min(Constants.Indexer.ADVANCE_SPEED, _feedSpeed + Constants.FireControl.METER_UP);
+        }
+        info("Ball " + _balls + ": fed in " + Math.round(_lastFeedToShot * 1000) + "ms, cycle " + Math.round(_lastCycle * 1000)
+                + "ms, released at " + Math.round(shot.getReleaseRPM()) + "rpm; feed speed now " + Math.round(_feedSpeed * 100) / 100.0);
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("State", _state.name());
+        metric("Blocker", _blocker);
+        metric("FeedSpeed", _feedSpeed);
+        metric("Balls", _balls);
+        metric("LastCycleMillis", _lastCycle * 1000);
+        metric("AverageCycleMillis", _averageCycle * 1000);
+        metric("LastFeedToShotMillis", _lastFeedToShot * 1000);
+    }
+
+    public enum State {
+        Idle,
+        Waiting,
+        Feeding,
+        Recovering
+    }
+}
@@ -0,0 +1,116 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import org.frc5687.infiniterecharge.robot.Constants;
+
+/**
+ * First-order model of the flywheel under velocity control: after a dead time, the error to the target RPM decays
+ * as e^(-t/tau).  That makes the time to get within RPM_TOLERANCE of a new target
+ *
+ *   deadTime + tau * ln(|target - rpm| / RPM_TOLERANCE)
+ *
+ * tau and the dead time start at the Constants.Shooter values and are refitted from the shooter's own RPM every time
+ * it steps to a new target: ln(error / initial error) against time is a straight line with slope -1/tau.  Fits are
+ * blended in gradually and logged, so good values can be copied back into Constants.
+ */
+public class FlywheelModel extends OutliersProxy {
+    private double _tau = Constants.Shooter.SPIN_UP_TIME_CONSTANT;
+    private double _deadTime = Constants.Shooter.SPIN_UP_DEAD_TIME;
+    private int _fits = 0;
+
+    private double _stepTarget = Double.NaN;
+    private double _stepStart;
+    private double _stepError;
+    private int _samples;
+    private double _sumT;
+    private double _sumY;
+    private double _sumTT;
+    private double _sumTY;
+
+    /**
+     * Feeds one RPM sample.  Call every loop.
+     *
+     * @param time seconds
+     * @param rpm measured flywheel RPM
+     * @param target target RPM
+     * @param closedLoop whether the flywheel is under velocity control (open loop samples are ignored)
+     */
+    public void update(double time, double rpm, double target, boolean closedLoop) {
+        if (!closedLoop || target <= 0) {
+            finishStep();
+            _stepTarget = Double.NaN;
+            return;
+        }
+        if (Double.isNaN(_stepTarget) || Math.abs(target - _stepTarget) > Constants.Shooter.SPIN_UP_MIN_STEP) {
+            finishStep();
+            _stepTarget = target;
+            _stepStart = time;
+            _stepError = target - rpm;
+            if (Math.abs(_stepError) < Constants.Shooter.SPIN_UP_MIN_STEP) {
+                // Too small a step to learn from.
+                _stepError = 0;
+            }
+            return;
+        }
+        if (_stepError == 0) {
+            return;
+        }
+        double fraction = (target - rpm) / _stepError;
+        if (fraction <= Constants.Shooter.RPM_TOLERANCE / Math.abs(_stepError)) {
+            // Arrived, the rest is noise.
+            finishStep();
+            _stepError = 0;
+            return;
+        }
+        if (fraction < 1) {
+            double t = time - _stepStart;
+            double y = Math.log(fraction);
+            _samples++;
+            _sumT += t;
+            _sumY += y;
+            _sumTT += t * t;
+            _sumTY += t * y;
+        }
+    }
+
+    /**
+     * @return seconds to get from one RPM to within tolerance of another
+     */
+    public double predict(double fromRPM, double toRPM) {
+        double error = Math.abs(toRPM - fromRPM);
+        if (error <= Constants.Shooter.RPM_TOLERANCE) {
+            return 0;
+        }
+        return _deadTime + _tau * Math.log(error / Constants.Shooter.RPM_TOLERANCE);
+    }
+
+    private void finishStep() {
+        if (_samples >= Constants.Shooter.SPIN_UP_MIN_SAMPLES) {
+            double denominator = _samples * _sumTT - _sumT * _sumT;
+            if (denominator > 0) {
+                double slope = (_samples * _sumTY - _sumT * _sumY) / denominator;
+                double intercept = (_sumY - slope * _sumT) / _samples;
+                if (slope < 0) {
+                    double tau = -1 / slope;
+                    double deadTime = Math.max(0, -intercept / slope);
+                    _tau += Constants.Shooter.SPIN_UP_FIT_WEIGHT * (tau - _tau);
+                    _deadTime += Constants.Shooter.SPIN_UP_FIT_WEIGHT * (deadTime - _deadTime);
+                    _fits++;
+                    info("Flywheel step to " + Math.round(_stepTarget) + " fitted tau " + Math.round(tau * 1000) + "ms, dead time "
+                            + Math.round(deadTime * 1000) + "ms; model now " + Math.round(_tau * 1000) + "ms, " + Math.round(_deadTime * 1000) + "ms");
+                }
+            }
+        }
+        _samples = 0;
+        _sumT = 0;
+        _sumY = 0;
+        _sumTT = 0;
+        _sumTY = 0;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Tau", _tau);
+        metric("DeadTime", _deadTime);
+        metric("Fits", _fits);
+    }
+}
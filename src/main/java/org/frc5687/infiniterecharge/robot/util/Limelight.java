@@ -3,6 +3,7 @@ package org.frc5687.infiniterecharge.robot.util;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTablesJNI;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.MedianFilter;
 import org.frc5687.infiniterecharge.robot.Constants;
@@ -112,6 +113,14 @@ public class Limelight extends OutliersProxy {
         return _tl.getDouble(0) + Constants.Limelight.OVERALL_LATENCY_MILLIS;
     }
 
+    /**
+     * @return seconds since the limelight last published a frame
+     */
+    public double getFrameAge() {
+        long lastChange = Math.max(_tl.getLastChange(), _tx.getLastChange());
+        return (NetworkTablesJNI.now() - lastChange) / 1000000.0;
+    }
+
     public double getSkew() {
         return _ts.getDouble(0.0);
     }
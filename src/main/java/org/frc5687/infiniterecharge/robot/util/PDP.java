@@ -2,6 +2,7 @@ package org.frc5687.infiniterecharge.robot.util;
 
 import edu.wpi.first.wpilibj.PowerDistributionPanel;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import org.frc5687.infiniterecharge.robot.Constants;
 
 public class PDP extends PowerDistributionPanel {
     private double[] cache;
@@ -68,7 +69,7 @@ public class PDP extends PowerDistributionPanel {
                     for (int i = 0; i < 16; i++) {
                         _pdp.cache[i] = _pdp.getCurrent(i, true);
                     }
-                    Thread.sleep(250);
+                    Thread.sleep(Constants.CurrentLimiter.PDP_CACHE_PERIOD);
                 } catch (Exception e) {
                     RioLogger.error(_pdp,  "PDPCacheUpdater exception: " + e.toString());
                 }
@@ -0,0 +1,184 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import jaci.pathfinder.Pathfinder;
+import jaci.pathfinder.Trajectory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Joins consecutive Pathfinder paths into one continuous profile.  Each path is generated to start and end at rest,
+ * so driving them back to back stops the robot at every joint.  Here the side positions are laid end to end and the
+ * velocity along the combined path is re-planned: each piece keeps its own cruise speed and the fastest acceleration
+ * seen in any piece, but only the very start and end are at rest.  The result is resampled at the first piece's dt.
+ *
+ * Pieces must all be driven the same direction and meet where the previous one ends.
+ */
+public class PathStitcher {
+    private static final double MIN_STEP = 1e-6;
+
+    /**
+     * @param lefts left side trajectories, in order
+     * @param rights right side trajectories, in the same order
+     */
+    public static Stitched stitch(Trajectory[] lefts, Trajectory[] rights) {
+        if (lefts.length == 0 || lefts.length != rights.length) {
+            throw new IllegalArgumentException("Need matching left and right trajectories to stitch");
+        }
+        double dt = lefts[0].get(0).dt;
+
+        // Lay the pieces end to end along each side.
+        List<Trajectory.Segment> left = new ArrayList<>();
+        List<Trajectory.Segment> right = new ArrayList<>();
+        List<Integer> pieceOf = new ArrayList<>();
+        double[] caps = new double[lefts.length];
+        double maxAccel = 0;
+        double leftOffset = 0;
+        double rightOffset = 0;
+        for (int piece = 0; piece < lefts.length; piece++) {
+            if (lefts[piece].length() != rights[piece].length()) {
+                throw new IllegalArgumentException("Piece " + piece + " has mismatched sides");
+            }
+            double previousCenter = 0;
+            // Each piece after the first starts where the last ended, so skip its first (duplicate) sample.
+            for (int i = piece == 0 ? 0 : 1; i < lefts[piece].length(); i++) {
+                Trajectory.Segment l = lefts[piece].get(i);
+                Trajectory.Segment r = rights[piece].get(i);
+                double center = (l.velocity + r.velocity) / 2;
+                caps[piece] = Math.max(caps[piece], Math.abs(center));
+                if (i > 0) {
+                    maxAccel = Math.max(maxAccel, Math.abs(center - previousCenter) / l.dt);
+                }
+                previousCenter = center;
+                left.add(offset(l, leftOffset));
+                right.add(offset(r, rightOffset));
+                pieceOf.add(piece);
+            }
+            leftOffset += lefts[piece].get(lefts[piece].length() - 1).position;
+            rightOffset += rights[piece].get(rights[piece].length() - 1).position;
+        }
+
+        int count = left.size();
+        double[] distance = new double[count];
+        for (int i = 0; i < count; i++) {
+            distance[i] = (left.get(i).position + right.get(i).position) / 2;
+        }
+
+        // Plan speed along the combined path: capped by each piece's cruise, accel limited both ways, at rest only at the ends.
+        double[] velocity = new double[count];
+        for (int i = 0; i < count; i++) {
+            velocity[i] = caps[pieceOf.get(i)];
+        }
+        velocity[0] = 0;
+        velocity[count - 1] = 0;
+        for (int i = 1; i < count; i++) {
+            double step = Math.max(0, distance[i] - distance[i - 1]);
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i - 1] * velocity[i - 1] + 2 * maxAccel * step));
+        }
+        for (int i = count - 2; i >= 0; i--) {
+            double step = Math.max(0, distance[i + 1] - distance[i]);
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i + 1] * velocity[i + 1] + 2 * maxAccel * step));
+        }
+
+        double[] time = new double[count];
+        for (int i = 1; i < count; i++) {
+            double step = Math.max(0, distance[i] - distance[i - 1]);
+            double average = (velocity[i] + velocity[i - 1]) / 2;
+            time[i] = time[i - 1] + (step < MIN_STEP ? 0 : step / Math.max(average, MIN_STEP));
+        }
+
+        // Resample by time at dt.
+        List<Trajectory.Segment> leftOut = new ArrayList<>();
+        List<Trajectory.Segment> rightOut = new ArrayList<>();
+        int[] starts = new int[lefts.length];
+        int lastPiece = 0;
+        int index = 0;
+        double previousLeftVelocity = 0;
+        double previousRightVelocity = 0;
+        for (int sample = 0; ; sample++) {
+            double t = Math.min(sample * dt, time[count - 1]);
+            while (index < count - 2 && time[index + 1] <= t) {
+                index++;
+            }
+            int next = Math.min(index + 1, count - 1);
+            double span = time[next] - time[index];
+            double f = span > 0 ? Math.min(1, (t - time[index]) / span) : 1;
+            int piece = pieceOf.get(f < 1 ? index : next);
+            while (lastPiece < piece) {
+                lastPiece++;
+                starts[lastPiece] = sample;
+            }
+
+            double centerVelocity = lerp(velocity[index], velocity[next], f);
+            double step = distance[next] - distance[index];
+            Trajectory.Segment l = interpolate(left.get(index), left.get(next), f);
+            Trajectory.Segment r = interpolate(right.get(index), right.get(next), f);
+            // Each side moves in proportion to how it moved along this stretch of the path.
+            double leftRatio = step > MIN_STEP ? (left.get(next).position - left.get(index).position) / step : 1;
+            double rightRatio = step > MIN_STEP ? (right.get(next).position - right.get(index).position) / step : 1;
+            l.velocity = centerVelocity * leftRatio;
+            r.velocity = centerVelocity * rightRatio;
+            l.acceleration = (l.velocity - previousLeftVelocity) / dt;
+            r.acceleration = (r.velocity - previousRightVelocity) / dt;
+            l.dt = dt;
+            r.dt = dt;
+            previousLeftVelocity = l.velocity;
+            previousRightVelocity = r.velocity;
+            leftOut.add(l);
+            rightOut.add(r);
+
+            if (t >= time[count - 1]) {
+                break;
+            }
+        }
+        while (lastPiece < lefts.length - 1) {
+            lastPiece++;
+            starts[lastPiece] = leftOut.size() - 1;
+        }
+
+        return new Stitched(new Trajectory(leftOut.toArray(new Trajectory.Segment[0])),
+                new Trajectory(rightOut.toArray(new Trajectory.Segment[0])), starts);
+    }
+
+    private static Trajectory.Segment offset(Trajectory.Segment segment, double distance) {
+        return new Trajectory.Segment(segment.dt, segment.x, segment.y, segment.position + distance,
+                segment.velocity, segment.acceleration, segment.jerk, segment.heading);
+    }
+
+    private static Trajectory.Segment interpolate(Trajectory.Segment a, Trajectory.Segment b, double f) {
+        double turn = Pathfinder.d2r(Pathfinder.boundHalfDegrees(Pathfinder.r2d(b.heading - a.heading)));
+        return new Trajectory.Segment(a.dt, lerp(a.x, b.x, f), lerp(a.y, b.y, f), lerp(a.position, b.position, f),
+                0, 0, 0, a.heading + turn * f);
+    }
+
+    private static double lerp(double a, double b, double f) {
+        return a + (b - a) * f;
+    }
+
+    public static class Stitched {
+        private Trajectory _left;
+        private Trajectory _right;
+        private int[] _starts;
+
+        private Stitched(Trajectory left, Trajectory right, int[] starts) {
+            _left = left;
+            _right = right;
+            _starts = starts;
+        }
+
+        public Trajectory getLeft() {
+            return _left;
+        }
+
+        public Trajectory getRight() {
+            return _right;
+        }
+
+        /**
+         * @return the segment at which each piece begins in the stitched trajectory
+         */
+        public int[] getStarts() {
+            return _starts;
+        }
+    }
+}
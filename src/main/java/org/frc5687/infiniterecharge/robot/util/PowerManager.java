@@ -0,0 +1,199 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.RobotController;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Robot-wide power budget.  Subsystems register each load with a priority and a supplier for its current demand,
+ * and loads that can give way register what to do when shed and when restored.  Demand is worked out from what each
+ * load has just been commanded to do (see motorDemand), not from what it's drawing now, so a driver slamming the
+ * stick shows up here the same cycle rather than after the current has risen and the battery has sagged.  Every cycle
+ * (update) the battery's resting voltage is estimated from the measured voltage and PDP current, and the voltage
+ * under the predicted demand is worked out from Constants.PowerManager.BATTERY_RESISTANCE.  If that would sag below SHED_VOLTAGE, the lowest
+ * priority loads are shed until it doesn't; once there is headroom above RESTORE_VOLTAGE they come back, highest
+ * priority first, one per cycle.  Every shed and restore is logged.
+ */
+public class PowerManager extends OutliersProxy {
+    private static PowerManager _instance;
+
+    public static PowerManager getInstance() {
+        if (_instance == null) {
+            _instance = new PowerManager();
+        }
+        return _instance;
+    }
+
+    private List<Load> _loads = new ArrayList<>();
+    private PDP _pdp;
+
+    private double _measuredCurrent;
+    private double _restingVoltage;
+    private double _predictedDemand;
+    private double _predictedVoltage;
+    private long _lastShedMillis;
+
+    private PowerManager() {
+    }
+
+    public void setPDP(PDP pdp) {
+        _pdp = pdp;
+    }
+
+    public Load register(String name, Priority priority, DoubleSupplier demand) {
+        Load load = new Load(name, priority, demand);
+        _loads.add(load);
+        return load;
+    }
+
+    public void update() {
+        _measuredCurrent = 0;
+        if (_pdp != null) {
+            for (int channel = 0; channel < 16; channel++) {
+                _measuredCurrent += _pdp.getCurrent(channel);
+            }
+        }
+        double voltage = RobotController.getBatteryVoltage();
+        _restingVoltage = voltage + _measuredCurrent * Constants.PowerManager.BATTERY_RESISTANCE;
+
+        _predictedDemand = Constants.PowerManager.BASE_CURRENT;
+        for (Load load : _loads) {
+            if (!load._shed) {
+                load._lastDemand = load._demand.getAsDouble();
+                _predictedDemand += load._lastDemand;
+            }
+        }
+        _predictedVoltage = predictVoltage(_predictedDemand);
+
+        // Shed, lowest priority first, until the prediction clears the threshold.
+        while (_predictedVoltage < Constants.PowerManager.SHED_VOLTAGE) {
+            Load victim = null;
+            for (Load load : _loads) {
+                if (load.canShed() && !load._shed && (victim == null || load._priority.ordinal() > victim._priority.ordinal())) {
+                    victim = load;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            victim.shed();
+            _predictedDemand -= victim._lastDemand;
+            info("Shed " + victim._name + " (" + victim._priority + ", " + Math.round(victim._lastDemand) + "A): predicted "
+                    + Math.round(_predictedVoltage * 10) / 10.0 + "V, now " + Math.round(predictVoltage(_predictedDemand) * 10) / 10.0 + "V");
+            _predictedVoltage = predictVoltage(_predictedDemand);
+            _lastShedMillis = System.currentTimeMillis();
+        }
+
+        // Restore the highest priority shed load if it fits with room to spare.
+        if (System.currentTimeMillis() - _lastShedMillis < Constants.PowerManager.MIN_SHED_TIME) {
+            return;
+        }
+        Load candidate = null;
+        for (Load load : _loads) {
+            if (load._shed && (candidate == null || load._priority.ordinal() < candidate._priority.ordinal())) {
+                candidate = load;
+            }
+        }
+        if (candidate != null && predictVoltage(_predictedDemand + candidate._lastDemand) > Constants.PowerManager.RESTORE_VOLTAGE) {
+            candidate.restore();
+            info("Restored " + candidate._name + " (" + candidate._priority + ", " + Math.round(candidate._lastDemand) + "A): predicted "
+                    + Math.round(predictVoltage(_predictedDemand + candidate._lastDemand) * 10) / 10.0 + "V");
+        }
+    }
+
+    /**
+     * Predicts the supply current of a DC motor at a newly commanded duty cycle.  Motor current is
+     * stall * (duty - speed), with speed as a fraction of free speed.  The speed is backed out of the last measured
+     * motor current and the duty it was measured at, so no gearing or free speed is needed, and it changes slowly
+     * enough to carry over to the new command.  The battery sees duty times the motor current; braking is taken as
+     * drawing nothing.
+     *
+     * @param commanded duty cycle just set, -1 to 1
+     * @param applied duty cycle the measurement was taken at
+     * @param measured motor (not supply) current, amps, unsigned as the controllers report it
+     * @param stallCurrent motor stall current at 12V
+     * @param limit the controller's current limit
+     */
+    public static double motorDemand(double commanded, double applied, double measured, double stallCurrent, double limit) {
+        double speed = applied - Math.copySign(measured, applied) / stallCurrent;
+        double motorCurrent = Helpers.limit(stallCurrent * (commanded - speed), limit);
+        return Math.max(0, commanded * motorCurrent);
+    }
+
+    private double predictVoltage(double demand) {
+        return _restingVoltage - demand * Constants.PowerManager.BATTERY_RESISTANCE;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("MeasuredCurrent", _measuredCurrent);
+        metric("RestingVoltage", _restingVoltage);
+        metric("PredictedDemand", _predictedDemand);
+        metric("PredictedVoltage", _predictedVoltage);
+        for (Load load : _loads) {
+            metric(load._name + "/Demand", load._lastDemand);
+            metric(load._name + "/Shed", load._shed);
+        }
+    }
+
+    public class Load {
+        private String _name;
+        private Priority _priority;
+        private DoubleSupplier _demand;
+        private Runnable _onShed;
+        private Runnable _onRestore;
+        private boolean _shed = false;
+        private double _lastDemand;
+
+        private Load(String name, Priority priority, DoubleSupplier demand) {
+            _name = name;
+            _priority = priority;
+            _demand = demand;
+        }
+
+        /**
+         * Makes this load sheddable.  Critical loads are never shed.
+         */
+        public Load sheddable(Runnable onShed, Runnable onRestore) {
+            _onShed = onShed;
+            _onRestore = onRestore;
+            return this;
+        }
+
+        private boolean canShed() {
+            return _onShed != null && _priority != Priority.Critical;
+        }
+
+        private void shed() {
+            _shed = true;
+            try {
+                _onShed.run();
+            } catch (Exception e) {
+                error("Exception shedding " + _name + ": " + e.getMessage());
+            }
+        }
+
+        private void restore() {
+            _shed = false;
+            try {
+                _onRestore.run();
+            } catch (Exception e) {
+                error("Exception restoring " + _name + ": " + e.getMessage());
+            }
+        }
+
+        public boolean isShed() {
+            return _shed;
+        }
+    }
+
+    public enum Priority {
+        Critical,
+        High,
+        Normal,
+        Low
+    }
+}
@@ -0,0 +1,119 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.controller.PIDController;
+import edu.wpi.first.wpilibj.controller.RamseteController;
+import edu.wpi.first.wpilibj.controller.SimpleMotorFeedforward;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.wpilibj.kinematics.DifferentialDriveWheelSpeeds;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+
+/**
+ * Follows a field-relative trajectory with a Ramsete controller.  The trajectory is sampled by elapsed time (not by
+ * loop count) and corrected against the fused DriveTrain pose.  Wheel speeds are turned into voltages with the
+ * characterized feedforward plus a velocity P loop on each side.  Used by AutoRamsetePath and DriveToPose.
+ */
+public class RamseteFollower {
+    private DriveTrain _driveTrain;
+    private Trajectory _trajectory;
+
+    private RamseteController _ramsete;
+    private SimpleMotorFeedforward _feedForward;
+    private DifferentialDriveKinematics _kinematics;
+    private PIDController _leftController;
+    private PIDController _rightController;
+
+    private DifferentialDriveWheelSpeeds _previousSpeeds;
+    private double _startTime;
+    private double _previousTime;
+    private double _elapsed;
+    private double _trackingError;
+    private double _headingError;
+
+    public RamseteFollower(DriveTrain driveTrain) {
+        _driveTrain = driveTrain;
+        _ramsete = new RamseteController(Constants.DriveTrain.RAMSETE_B, Constants.DriveTrain.RAMSETE_ZETA);
+        _feedForward = driveTrain.getDriveTrainFeedForward();
+        _kinematics = driveTrain.getKinematics();
+        _leftController = new PIDController(Constants.DriveTrain.KP_DRIVE_VELOCITY, 0, 0);
+        _rightController = new PIDController(Constants.DriveTrain.KP_DRIVE_VELOCITY, 0, 0);
+    }
+
+    public void start(Trajectory trajectory) {
+        _trajectory = trajectory;
+        Trajectory.State initial = _trajectory.sample(0);
+        _previousSpeeds = _kinematics.toWheelSpeeds(new ChassisSpeeds(
+                initial.velocityMetersPerSecond,
+                0,
+                initial.curvatureRadPerMeter * initial.velocityMetersPerSecond));
+        _leftController.reset();
+        _rightController.reset();
+        _startTime = Timer.getFPGATimestamp();
+        _previousTime = _startTime;
+        _elapsed = 0;
+    }
+
+    public void update() {
+        if (_trajectory == null) {
+            return;
+        }
+        double now = Timer.getFPGATimestamp();
+        _elapsed = now - _startTime;
+        double dt = now - _previousTime;
+        if (dt <= 0) {
+            dt = Constants.UPDATE_PERIOD;
+        }
+
+        Trajectory.State desired = _trajectory.sample(_elapsed);
+        Pose2d pose = _driveTrain.getPose();
+        DifferentialDriveWheelSpeeds target = _kinematics.toWheelSpeeds(_ramsete.calculate(pose, desired));
+        DifferentialDriveWheelSpeeds actual = _driveTrain.getWheelSpeeds();
+
+        double leftFeedForward = _feedForward.calculate(target.leftMetersPerSecond,
+                (target.leftMetersPerSecond - _previousSpeeds.leftMetersPerSecond) / dt);
+        double rightFeedForward = _feedForward.calculate(target.rightMetersPerSecond,
+                (target.rightMetersPerSecond - _previousSpeeds.rightMetersPerSecond) / dt);
+
+        double leftVolts = leftFeedForward + _leftController.calculate(actual.leftMetersPerSecond, target.leftMetersPerSecond);
+        double rightVolts = rightFeedForward + _rightController.calculate(actual.rightMetersPerSecond, target.rightMetersPerSecond);
+        _driveTrain.setVoltages(leftVolts, rightVolts);
+
+        _previousSpeeds = target;
+        _previousTime = now;
+        _trackingError = pose.getTranslation().getDistance(desired.poseMeters.getTranslation());
+        _headingError = desired.poseMeters.getRotation().minus(pose.getRotation()).getDegrees();
+    }
+
+    public boolean isStarted() {
+        return _trajectory != null;
+    }
+
+    public boolean isFinished() {
+        return _trajectory != null && Timer.getFPGATimestamp() - _startTime >= _trajectory.getTotalTimeSeconds();
+    }
+
+    public void stop() {
+        _trajectory = null;
+        _driveTrain.setPower(0, 0, true);
+    }
+
+    public Trajectory getTrajectory() {
+        return _trajectory;
+    }
+
+    public double getElapsed() {
+        return _elapsed;
+    }
+
+    public double getTrackingError() {
+        return _trackingError;
+    }
+
+    public double getHeadingError() {
+        return _headingError;
+    }
+}
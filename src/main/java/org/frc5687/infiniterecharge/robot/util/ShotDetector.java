@@ -0,0 +1,247 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Counts balls leaving the shooter from the flywheel's RPM.  Each ball takes a bite out of the flywheel's speed and
+ * the velocity loop then pulls it back, so a shot looks like a dip of at least DIP_THRESHOLD below target followed by
+ * a recovery to within RPM_TOLERANCE.  A ball that arrives while the flywheel is still recovering from the last one
+ * shows up as a rise of at least REBOUND off the bottom of the dip followed by a fresh fall of DIP_THRESHOLD, and
+ * counts as another shot.  A single dip just getting deeper is still one ball.  Dips that last longer
+ * than MAX_DIP_TIME, or where the target changes, aren't shots (spin-down, stall) and are dropped.
+ *
+ * The RPM is sampled from a Notifier every SAMPLE_PERIOD, faster than the main loop, so short dips aren't missed.
+ * Shots are queued there and handed to listeners from poll() on the main thread.
+ */
+public class ShotDetector extends OutliersProxy {
+    private DoubleSupplier _rpm;
+    private DoubleSupplier _targetRPM;
+    private Notifier _notifier;
+    private ConcurrentLinkedQueue<Shot> _queue = new ConcurrentLinkedQueue<>();
+    private List<Consumer<Shot>> _listeners = new ArrayList<>();
+
+    // Sampler state, notifier thread only
+    private boolean _armed = false;
+    private boolean _dipping = false;
+    private double _dipTarget;
+    private double _dipStart;
+    private double _ballStart;
+    private double _minimum;
+    private double _rebound;
+    private double _lastRPM;
+    private double _releaseRPM;
+
+    private volatile int _count = 0;
+    private volatile boolean _inDip = false;
+    private volatile double _ballStartTime = Double.NaN;
+    private Shot _lastShot;
+
+    public ShotDetector(DoubleSupplier rpm, DoubleSupplier targetRPM) {
+        this(rpm, targetRPM, true);
+    }
+
+    /**
+     * @param sampling start the sampling notifier; without it samples are fed in through sample(now, rpm, target)
+     */
+    ShotDetector(DoubleSupplier rpm, DoubleSupplier targetRPM, boolean sampling) {
+        _rpm = rpm;
+        _targetRPM = targetRPM;
+        if (sampling) {
+            _notifier = new Notifier(this::sample);
+            _notifier.startPeriodic(Constants.ShotDetector.SAMPLE_PERIOD);
+        }
+    }
+
+    public void addListener(Consumer<Shot> listener) {
+        _listeners.add(listener);
+    }
+
+    /**
+     * Hands queued shots to listeners.  Call every loop.
+     */
+    public void poll() {
+        Shot shot;
+        while ((shot = _queue.poll()) != null) {
+            _lastShot = shot;
+            info("Shot " + shot.getBall() + " at " + Math.round(shot.getTargetRPM()) + "rpm: dip " + Math.round(shot.getDepth())
+                    + "rpm, recovered in " + Math.round(shot.getRecoveryTime() * 1000) + "ms");
+            for (Consumer<Shot> listener : _listeners) {
+                listener.accept(shot);
+            }
+        }
+    }
+
+    /**
+     * @return balls detected since the robot started; compare against an earlier value to count a volley
+     */
+    public int getCount() {
+        return _count;
+    }
+
+    /**
+     * @return whether the flywheel is in the middle of a shot's dip
+     */
+    public boolean isInDip() {
+        return _inDip;
+    }
+
+    /**
+     * @return FPGA seconds the latest ball hit the flywheel, the same as its Shot's getTime() once it's emitted, or
+     * NaN before the first.  Watch this to catch the robot's state at release rather than when the Shot arrives.
+     */
+    public double getBallStartTime() {
+        return _ballStartTime;
+    }
+
+    public Shot getLastShot() {
+        return _lastShot;
+    }
+
+    private void sample() {
+        sample(Timer.getFPGATimestamp(), _rpm.getAsDouble(), _targetRPM.getAsDouble());
+    }
+
+    void sample(double now, double rpm, double target) {
+        double previous = _lastRPM;
+        _lastRPM = rpm;
+        if (target <= 0) {
+            _armed = false;
+            endDip();
+            return;
+        }
+        if (!_dipping) {
+            if (Math.abs(target - rpm) < Constants.Shooter.RPM_TOLERANCE) {
+                _armed = true;
+            } else if (_armed && rpm < target - Constants.ShotDetector.DIP_THRESHOLD) {
+                _dipping = true;
+                _inDip = true;
+                _dipTarget = target;
+                _dipStart = now;
+                _ballStart = now;
+                _ballStartTime = now;
+                _minimum = rpm;
+                _rebound = rpm;
+                _releaseRPM = previous;
+            } else if (rpm > target + Constants.Shooter.RPM_TOLERANCE) {
+                // Coming down to a new, lower target.
+                _armed = false;
+            }
+            return;
+        }
+
+        if (Math.abs(target - _dipTarget) > Constants.Shooter.RPM_TOLERANCE || now - _dipStart > Constants.ShotDetector.MAX_DIP_TIME) {
+            _armed = false;
+            endDip();
+            return;
+        }
+        if (rpm >= target - Constants.Shooter.RPM_TOLERANCE) {
+            emit(now);
+            endDip();
+            return;
+        }
+        if (rpm < _minimum) {
+            // Still falling: the rebound is measured from the new bottom.
+            _minimum = rpm;
+            _rebound = rpm;
+        } else {
+            _rebound = Math.max(_rebound, rpm);
+        }
+        if (_rebound - _minimum > Constants.ShotDetector.REBOUND && rpm < _rebound - Constants.ShotDetector.DIP_THRESHOLD) {
+            // Another ball before we recovered.
+            emit(now);
+            _ballStart = now;
+            _ballStartTime = now;
+            _releaseRPM = _rebound;
+            _minimum = rpm;
+            _rebound = rpm;
+        }
+    }
+
+    private void emit(double now) {
+        _count++;
+        _queue.add(new Shot(_ballStart, _count, _dipTarget, _releaseRPM, _releaseRPM - _minimum, now - _ballStart));
+    }
+
+    private void endDip() {
+        _dipping = false;
+        _inDip = false;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Count", _count);
+        metric("InDip", _inDip);
+        if (_lastShot != null) {
+            metric("LastDepth", _lastShot.getDepth());
+            metric("LastRecoveryMillis", _lastShot.getRecoveryTime() * 1000);
+        }
+    }
+
+    /**
+     * One detected ball.
+     */
+    public static class Shot {
+        private double _time;
+        private int _ball;
+        private double _targetRPM;
+        private double _releaseRPM;
+        private double _depth;
+        private double _recoveryTime;
+
+        private Shot(double time, int ball, double targetRPM, double releaseRPM, double depth, double recoveryTime) {
+            _time = time;
+            _ball = ball;
+            _targetRPM = targetRPM;
+            _releaseRPM = releaseRPM;
+            _depth = depth;
+            _recoveryTime = recoveryTime;
+        }
+
+        /**
+         * @return FPGA seconds when the dip started
+         */
+        public double getTime() {
+            return _time;
+        }
+
+        /**
+         * @return running ball count, as from getCount()
+         */
+        public int getBall() {
+            return _ball;
+        }
+
+        public double getTargetRPM() {
+            return _targetRPM;
+        }
+
+        /**
+         * @return RPM just before the ball hit the flywheel
+         */
+        public double getReleaseRPM() {
+            return _releaseRPM;
+        }
+
+        /**
+         * @return RPM lost
+         */
+        public double getDepth() {
+            return _depth;
+        }
+
+        /**
+         * @return seconds from the start of the dip to back within tolerance (or to the next ball)
+         */
+        public double getRecoveryTime() {
+            return _recoveryTime;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.util.Units;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.OI;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.subsystems.Hood;
+import org.frc5687.infiniterecharge.robot.subsystems.Shooter;
+import org.frc5687.infiniterecharge.robot.subsystems.Turret;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logs every shot the ShotDetector sees, one line each, to /U/shotlog.csv:
+ *
+ *   time, distance (in), hood (deg), release rpm, target rpm, turret error (deg), dip (rpm), recovery (ms), outcome
+ *
+ * Distance, hood and turret error are what they were as the ball hit the flywheel: a Shot only arrives once the
+ * flywheel has recovered (or the next ball hits), by which time the turret and hood may have moved on, so they're
+ * snapshotted on the loop that sees the ball start and matched to the Shot by its time.
+ *
+ * The driver tags the last volley with Start (made) or Back (missed) within OUTCOME_WINDOW of its last ball; shots
+ * nobody tagged are written with '?'.  ShotFitter turns the log into a new shot table.
+ */
+public class ShotRecorder extends OutliersProxy {
+    public static final char MADE = 'M';
+    public static final char MISSED = 'X';
+    public static final char UNTAGGED = '?';
+
+    private Shooter _shooter;
+    private Hood _hood;
+    private Turret _turret;
+    private DriveTrain _driveTrain;
+    private OI _oi;
+
+    private List<Record> _snapshots = new ArrayList<>();
+    private double _lastBallStart = Double.NaN;
+    private List<Record> _pending = new ArrayList<>();
+    private BufferedWriter _writer;
+    private boolean _failed = false;
+    private boolean _madeWasPressed = false;
+    private boolean _missedWasPressed = false;
+    private int _recorded;
+    private int _made;
+    private int _missed;
+    private int _late;
+
+    public ShotRecorder(Shooter shooter, Hood hood, Turret turret, DriveTrain driveTrain, OI oi) {
+        _shooter = shooter;
+        _hood = hood;
+        _turret = turret;
+        _driveTrain = driveTrain;
+        _oi = oi;
+        _shooter.getShotDetector().addListener(this::record);
+    }
+
+    /**
+     * Snapshots each ball as it starts, takes driver tags and writes out shots whose tagging window has passed.  Call
+     * every loop, before the shooter polls its ShotDetector.
+     */
+    public void update() {
+        double ballStart = _shooter.getShotDetector().getBallStartTime();
+        if (!Double.isNaN(ballStart) && ballStart != _lastBallStart) {
+            _lastBallStart = ballStart;
+            _snapshots.add(snapshot(ballStart));
+        }
+
+        boolean made = _oi.isShotMadePressed();
+        boolean missed = _oi.isShotMissedPressed();
+        if (made && !_madeWasPressed) {
+            tag(MADE);
+        } else if (missed && !_missedWasPressed) {
+            tag(MISSED);
+        }
+        _madeWasPressed = made;
+        _missedWasPressed = missed;
+
+        double now = Timer.getFPGATimestamp();
+        double last = _pending.isEmpty() ? 0 : _pending.get(_pending.size() - 1)._time;
+        if (!_pending.isEmpty() && now - last > Constants.ShotRecorder.OUTCOME_WINDOW) {
+            flush();
+        }
+    }
+
+    private Record snapshot(double time) {
+        Record record = new Record();
+        record._time = time;
+        record._distance = Units.metersToInches(_driveTrain.distanceToTarget());
+        record._hood = _hood.getPositionDegrees();
+        record._turretError = _turret.getSetpoint() - _turret.getPositionDegrees();
+        return record;
+    }
+
+    private void record(ShotDetector.Shot shot) {
+        Record record = null;
+        // Snapshots at or before this ball are either its own or from dips that turned out not to be shots
+        while (!_snapshots.isEmpty() && _snapshots.get(0)._time <= shot.getTime()) {
+            Record snapshot = _snapshots.remove(0);
+            if (snapshot._time == shot.getTime()) {
+                record = snapshot;
+            }
+        }
+        if (record == null) {
+            // Started and finished within one loop, so the best we have is now
+            _late++;
+            record = snapshot(shot.getTime());
+        }
+        record._releaseRPM = shot.getReleaseRPM();
+        record._targetRPM = shot.getTargetRPM();
+        record._depth = shot.getDepth();
+        record._recoveryMillis = shot.getRecoveryTime() * 1000;
+        record._outcome = UNTAGGED;
+        _pending.add(record);
+    }
+
+    private void tag(char outcome) {
+        if (_pending.isEmpty()) {
+            warn("No shots to tag");
+            return;
+        }
+        for (Record record : _pending) {
+            record._outcome = outcome;
+        }
+        info("Tagged " + _pending.size() + " shots " + outcome);
+        flush();
+    }
+
+    private void flush() {
+        for (Record record : _pending) {
+            write(record);
+            _recorded++;
+            if (record._outcome == MADE) {
+                _made++;
+            } else if (record._outcome == MISSED) {
+                _missed++;
+            }
+        }
+        _pending.clear();
+        if (_writer != null) {
+            try {
+                _writer.flush();
+            } catch (IOException e) {
+                error("Error flushing shot log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void write(Record record) {
+        if (_failed) {
+            return;
+        }
+        try {
+            if (_writer == null) {
+                File file = new File(Constants.ShotRecorder.LOG_FILE);
+                boolean exists = file.exists();
+                _writer = new BufferedWriter(new FileWriter(file, true));
+                if (!exists) {
+                    _writer.write("# time,distance,hood,rpm,target,turretError,dip,recoveryMillis,outcome");
+                    _writer.newLine();
+                }
+            }
+            _writer.write(round(record._time) + "," + round(record._distance) + "," + round(record._hood) + ","
+                    + Math.round(record._releaseRPM) + "," + Math.round(record._targetRPM) + "," + round(record._turretError) + ","
+                    + Math.round(record._depth) + "," + Math.round(record._recoveryMillis) + "," + record._outcome);
+            _writer.newLine();
+        } catch (IOException e) {
+            error("Error writing shot log, giving up: " + e.getMessage());
+            _failed = true;
+        }
+    }
+
+    private double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Pending", _pending.size());
+        metric("Recorded", _recorded);
+        metric("Made", _made);
+        metric("Missed", _missed);
+        metric("LateSnapshots", _late);
+    }
+
+    private static class Record {
+        private double _time;
+        private double _distance;
+        private double _hood;
+        private double _releaseRPM;
+        private double _targetRPM;
+        private double _turretError;
+        private double _depth;
+        private double _recoveryMillis;
+        private char _outcome;
+    }
+}
@@ -0,0 +1,149 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.kinematics.DifferentialDriveWheelSpeeds;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Aims while the robot is moving.  The ball leaves with the robot's velocity, so instead of the real target we aim at
+ * a virtual target moved back along that velocity by the ball's time of flight.  Time of flight depends on the
+ * distance to the virtual target (see ShotTable), so the two are iterated (a few times at most) until they agree.
+ *
+ * solve() doesn't allocate, so it's fine to call every loop.  Results are the turret angle (same convention as
+ * DriveTrain.getAngleToTarget), hood angle and flywheel RPM for the virtual target, plus how far each leads the
+ * standing-still solution.
+ */
+public class ShotSolver extends OutliersProxy {
+    private DoubleUnaryOperator _hoodForDistance;
+    private DoubleUnaryOperator _rpmForDistance;
+    private DoubleUnaryOperator _timeOfFlightForDistance;
+
+    private double _distance;
+    private double _virtualDistance;
+    private double _timeOfFlight;
+    private int _iterations;
+    private double _turretAngle;
+    private double _hoodAngle;
+    private double _rpm;
+    private double _turretLead;
+    private double _hoodLead;
+    private double _rpmLead;
+
+    /**
+     * @param hoodForDistance hood angle in degrees for a distance in meters
+     * @param rpmForDistance flywheel RPM for a distance in meters
+     * @param timeOfFlightForDistance ball time of flight in seconds for a distance in meters
+     */
+    public ShotSolver(DoubleUnaryOperator hoodForDistance, DoubleUnaryOperator rpmForDistance, DoubleUnaryOperator timeOfFlightForDistance) {
+        _hoodForDistance = hoodForDistance;
+        _rpmForDistance = rpmForDistance;
+        _timeOfFlightForDistance = timeOfFlightForDistance;
+    }
+
+    /**
+     * @param pose fused field pose, meters
+     * @param wheelSpeeds drive wheel speeds, meters per second
+     */
+    public void solve(Pose2d pose, DifferentialDriveWheelSpeeds wheelSpeeds) {
+        double x = pose.getTranslation().getX();
+        double y = pose.getTranslation().getY();
+        double heading = pose.getRotation().getRadians();
+        double targetX = Constants.AutoPositions.TARGET_POSE.getTranslation().getX();
+        double targetY = Constants.AutoPositions.TARGET_POSE.getTranslation().getY();
+
+        double speed = (wheelSpeeds.leftMetersPerSecond + wheelSpeeds.rightMetersPerSecond) / 2;
+        double vx = speed * Math.cos(heading);
+        double vy = speed * Math.sin(heading);
+
+        _distance = Math.hypot(targetX - x, targetY - y);
+        double staticAngle = turretAngle(targetX - x, targetY - y, pose.getRotation().getDegrees());
+        double staticHood = _hoodForDistance.applyAsDouble(_distance);
+        double staticRpm = _rpmForDistance.applyAsDouble(_distance);
+
+        double virtualX = targetX;
+        double virtualY = targetY;
+        _virtualDistance = _distance;
+        _timeOfFlight = _timeOfFlightForDistance.applyAsDouble(_distance);
+        _iterations = 0;
+        if (Math.abs(speed) > Constants.ShotSolver.MIN_SPEED) {
+            for (_iterations = 1; _iterations <= Constants.ShotSolver.MAX_ITERATIONS; _iterations++) {
+                virtualX = targetX - vx * _timeOfFlight;
+                virtualY = targetY - vy * _timeOfFlight;
+                _virtualDistance = Math.hypot(virtualX - x, virtualY - y);
+                double timeOfFlight = _timeOfFlightForDistance.applyAsDouble(_virtualDistance);
+                double change = Math.abs(timeOfFlight - _timeOfFlight);
+                _timeOfFlight = timeOfFlight;
+                if (change < Constants.ShotSolver.CONVERGENCE) {
+                    break;
+                }
+            }
+            _iterations = Math.min(_iterations, Constants.ShotSolver.MAX_ITERATIONS);
+        }
+
+        _turretAngle = turretAngle(virtualX - x, virtualY - y, pose.getRotation().getDegrees());
+        _hoodAngle = _hoodForDistance.applyAsDouble(_virtualDistance);
+        _rpm = _rpmForDistance.applyAsDouble(_virtualDistance);
+        _turretLead = _turretAngle - staticAngle;
+        // The two angles can land either side of the +/-180 seam
+        if (_turretLead > 180) {
+            _turretLead -= 360;
+        } else if (_turretLead < -180) {
+            _turretLead += 360;
+        }
+        _hoodLead = _hoodAngle - staticHood;
+        _rpmLead = _rpm - staticRpm;
+    }
+
+    /**
+     * Turret angle for a target at (dx, dy) from the robot, worked the same way as DriveTrain.getAngleToTarget.
+     */
+    private double turretAngle(double dx, double dy, double headingDegrees) {
+        double bearing = Math.toDegrees(Math.atan2(dy, dx));
+        double angle = 180 - bearing;
+        if (angle > 180) {
+            angle -= 360;
+        }
+        return angle + headingDegrees;
+    }
+
+    public double getTurretAngle() {
+        return _turretAngle;
+    }
+
+    public double getHoodAngle() {
+        return _hoodAngle;
+    }
+
+    public double getRPM() {
+        return _rpm;
+    }
+
+    public double getTurretLead() {
+        return _turretLead;
+    }
+
+    public double getHoodLead() {
+        return _hoodLead;
+    }
+
+    public double getRPMLead() {
+        return _rpmLead;
+    }
+
+    public double getVirtualDistance() {
+        return _virtualDistance;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Distance", _distance);
+        metric("VirtualDistance", _virtualDistance);
+        metric("TimeOfFlight", _timeOfFlight);
+        metric("Iterations", _iterations);
+        metric("TurretLead", _turretLead);
+        metric("HoodLead", _hoodLead);
+        metric("RPMLead", _rpmLead);
+    }
+}
@@ -0,0 +1,232 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Distance to hood angle, flywheel RPM and ball time of flight, from measured shots.  Points are loaded from the USB
+ * drive (/U/shots.csv) if we've tuned any there, otherwise from the deployed shots.csv, and looked up with a binary
+ * search and linear interpolation (clamped at the ends).
+ *
+ * Points can be added, changed or removed from the dashboard (ShotTable/Distance, Hood, RPM, TimeOfFlight, then Set
+ * or Remove).  Each edit is saved straight to /U/shots.csv, which takes priority over the deployed file from then on,
+ * so tuning between matches doesn't need a redeploy.  Copy it back into src/main/deploy when it's settled.
+ */
+public class ShotTable extends OutliersProxy {
+    private static ShotTable _instance;
+
+    public static ShotTable getInstance() {
+        if (_instance == null) {
+            _instance = new ShotTable();
+        }
+        return _instance;
+    }
+
+    private volatile Points _points;
+    private String _source;
+
+    private ShotTable() {
+        File tuned = new File(Constants.ShotTable.TUNED_FILE);
+        File deployed = new File(Filesystem.getDeployDirectory(), Constants.ShotTable.DEPLOY_FILE);
+        if (!load(tuned) && !load(deployed)) {
+            error("No shot table, using fixed near shot");
+            _points = new Points(new TreeMap<>());
+            _source = "none";
+        }
+        SmartDashboard.putNumber("ShotTable/Distance", 0);
+        SmartDashboard.putNumber("ShotTable/Hood", 0);
+        SmartDashboard.putNumber("ShotTable/RPM", 0);
+        SmartDashboard.putNumber("ShotTable/TimeOfFlight", 0);
+        SmartDashboard.putBoolean("ShotTable/Set", false);
+        SmartDashboard.putBoolean("ShotTable/Remove", false);
+    }
+
+    /**
+     * @param distance inches to the target
+     */
+    public double getHoodAngle(double distance) {
+        Points points = _points;
+        return points.isEmpty() ? Constants.Hood.NEAR_TARGET_HOOD_ANGLE_DEGREES : points.interpolate(points._hood, distance);
+    }
+
+    /**
+     * @param distance inches to the target
+     */
+    public double getRPM(double distance) {
+        Points points = _points;
+        return points.isEmpty() ? Constants.Shooter.NEAR_TARGET_SHOOTER_SPEED_PERCENT : points.interpolate(points._rpm, distance);
+    }
+
+    /**
+     * @param distance inches to the target
+     * @return seconds
+     */
+    public double getTimeOfFlight(double distance) {
+        Points points = _points;
+        return points.isEmpty() ? Constants.ShotTable.DEFAULT_TIME_OF_FLIGHT : points.interpolate(points._timeOfFlight, distance);
+    }
+
+    private boolean load(File file) {
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            TreeMap<Double, double[]> rows = new TreeMap<>();
+            List<String> lines = Files.readAllLines(file.toPath());
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                rows.put(Double.parseDouble(fields[0].trim()), new double[] {
+                        Double.parseDouble(fields[1].trim()),
+                        Double.parseDouble(fields[2].trim()),
+                        Double.parseDouble(fields[3].trim())
+                });
+            }
+            if (rows.isEmpty()) {
+                warn(file + " has no shots");
+                return false;
+            }
+            _points = new Points(rows);
+            _source = file.getPath();
+            info("Loaded " + rows.size() + " shots from " + file);
+            return true;
+        } catch (Exception e) {
+            error("Error loading shots from " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void save(TreeMap<Double, double[]> rows) {
+        File file = new File(Constants.ShotTable.TUNED_FILE);
+        File temp = new File(Constants.ShotTable.TUNED_FILE + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp))) {
+            writer.write("# distance (in), hood (deg), rpm, time of flight (s)");
+            writer.newLine();
+            for (Map.Entry<Double, double[]> row : rows.entrySet()) {
+                double[] values = row.getValue();
+                writer.write(row.getKey() + "," + values[0] + "," + values[1] + "," + values[2]);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            error("Error saving shots to " + file + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            _source = file.getPath();
+        } catch (IOException e) {
+            error("Error saving shots to " + file + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void updateDashboard() {
+        boolean set = SmartDashboard.getBoolean("ShotTable/Set", false);
+        boolean remove = SmartDashboard.getBoolean("ShotTable/Remove", false);
+        if (set || remove) {
+            double distance = SmartDashboard.getNumber("ShotTable/Distance", 0);
+            TreeMap<Double, double[]> rows = _points.toRows();
+            if (set) {
+                double[] values = {
+                        SmartDashboard.getNumber("ShotTable/Hood", 0),
+                        SmartDashboard.getNumber("ShotTable/RPM", 0),
+                        SmartDashboard.getNumber("ShotTable/TimeOfFlight", 0)
+                };
+                rows.put(distance, values);
+                info("Set shot at " + distance + "in to " + Arrays.toString(values));
+            } else if (rows.remove(distance) != null) {
+                info("Removed shot at " + distance + "in");
+            }
+            _points = new Points(rows);
+            save(rows);
+            SmartDashboard.putBoolean("ShotTable/Set", false);
+            SmartDashboard.putBoolean("ShotTable/Remove", false);
+        }
+        metric("Source", _source);
+        metric("Points", _points.toString());
+    }
+
+    /**
+     * An immutable snapshot, replaced whole on each edit so lookups never see a half-made table.
+     */
+    private static class Points {
+        private double[] _distance;
+        private double[] _hood;
+        private double[] _rpm;
+        private double[] _timeOfFlight;
+
+        private Points(TreeMap<Double, double[]> rows) {
+            int count = rows.size();
+            _distance = new double[count];
+            _hood = new double[count];
+            _rpm = new double[count];
+            _timeOfFlight = new double[count];
+            int i = 0;
+            for (Map.Entry<Double, double[]> row : rows.entrySet()) {
+                _distance[i] = row.getKey();
+                _hood[i] = row.getValue()[0];
+                _rpm[i] = row.getValue()[1];
+                _timeOfFlight[i] = row.getValue()[2];
+                i++;
+            }
+        }
+
+        private boolean isEmpty() {
+            return _distance.length == 0;
+        }
+
+        private double interpolate(double[] values, double distance) {
+            int last = _distance.length - 1;
+            if (distance <= _distance[0]) {
+                return values[0];
+            }
+            if (distance >= _distance[last]) {
+                return values[last];
+            }
+            int index = Arrays.binarySearch(_distance, distance);
+            if (index >= 0) {
+                return values[index];
+            }
+            int upper = -index - 1;
+            int lower = upper - 1;
+            double fraction = (distance - _distance[lower]) / (_distance[upper] - _distance[lower]);
+            return values[lower] + (values[upper] - values[lower]) * fraction;
+        }
+
+        private TreeMap<Double, double[]> toRows() {
+            TreeMap<Double, double[]> rows = new TreeMap<>();
+            for (int i = 0; i < _distance.length; i++) {
+                rows.put(_distance[i], new double[] { _hood[i], _rpm[i], _timeOfFlight[i] });
+            }
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < _distance.length; i++) {
+                if (i > 0) {
+                    builder.append("; ");
+                }
+                builder.append(Math.round(_distance[i])).append(":").append(Math.round(_hood[i] * 10) / 10.0)
+                        .append("/").append(Math.round(_rpm[i])).append("/").append(Math.round(_timeOfFlight[i] * 100) / 100.0);
+            }
+            return builder.toString();
+        }
+    }
+}
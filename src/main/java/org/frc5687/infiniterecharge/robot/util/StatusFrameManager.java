@@ -0,0 +1,309 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+import com.revrobotics.CANError;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.can.CANStatus;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Central registry for CAN status frame rates.  Each subsystem declares which signals it actually reads from each
+ * controller and how often; everything else is slowed to the slowest period the controller allows.  At startup
+ * (apply) the requested periods are stretched, lowest priority first, until the projected bus load fits inside
+ * Constants.CAN.UTILIZATION_BUDGET, and then pushed to the controllers.
+ */
+public class StatusFrameManager extends OutliersProxy {
+    private static StatusFrameManager _instance;
+
+    public static StatusFrameManager getInstance() {
+        if (_instance == null) {
+            _instance = new StatusFrameManager();
+        }
+        return _instance;
+    }
+
+    private List<Device> _devices = new ArrayList<>();
+    private boolean _applied = false;
+    private CANStatus _canStatus;
+
+    private StatusFrameManager() {
+    }
+
+    public Device register(String name, BaseMotorController controller, Priority priority) {
+        Device device = new Device(name, controller, null, priority);
+        _devices.add(device);
+        return device;
+    }
+
+    public Device register(String name, CANSparkMax controller, Priority priority) {
+        Device device = new Device(name, null, controller, priority);
+        _devices.add(device);
+        return device;
+    }
+
+    /**
+     * Assigns periods within the budget and pushes them to every registered controller.  Call once, after all the
+     * subsystems have been allocated.
+     */
+    public void apply() {
+        allocate();
+        for (Device device : _devices) {
+            device.apply();
+        }
+        _applied = true;
+        info("Applied status frames to " + _devices.size() + " controllers, projected bus utilization " + Math.round(getProjectedUtilization() * 100) + "%");
+    }
+
+    public boolean isApplied() {
+        return _applied;
+    }
+
+    public double getProjectedUtilization() {
+        double framesPerSecond = 0;
+        for (Device device : _devices) {
+            framesPerSecond += device.getFramesPerSecond();
+        }
+        return framesPerSecond * Constants.CAN.BITS_PER_FRAME / Constants.CAN.BITRATE;
+    }
+
+    public double getMeasuredUtilization() {
+        _canStatus = RobotController.getCANStatus();
+        return _canStatus.percentBusUtilization;
+    }
+
+    private void allocate() {
+        for (Device device : _devices) {
+            device.reset();
+        }
+        while (getProjectedUtilization() > Constants.CAN.UTILIZATION_BUDGET) {
+            Device victim = null;
+            Frame victimFrame = null;
+            for (Device device : _devices) {
+                if (device._priority == Priority.Critical) {
+                    continue;
+                }
+                Frame frame = device.getFastestStretchableFrame();
+                if (frame == null) {
+                    continue;
+                }
+                if (victim == null
+                        || device._priority.ordinal() > victim._priority.ordinal()
+                        || (device._priority == victim._priority && device._assigned.get(frame) < victim._assigned.get(victimFrame))) {
+                    victim = device;
+                    victimFrame = frame;
+                }
+            }
+            if (victim == null) {
+                warn("Cannot fit status frames in a " + Math.round(Constants.CAN.UTILIZATION_BUDGET * 100) + "% budget, projected " + Math.round(getProjectedUtilization() * 100) + "%");
+                return;
+            }
+            victim.stretch(victimFrame);
+        }
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Utilization/Budget", Constants.CAN.UTILIZATION_BUDGET);
+        metric("Utilization/Projected", getProjectedUtilization());
+        metric("Utilization/Measured", getMeasuredUtilization());
+        if (_canStatus != null) {
+            metric("TxFullCount", _canStatus.txFullCount);
+            metric("BusOffCount", _canStatus.busOffCount);
+        }
+    }
+
+    public class Device {
+        private String _name;
+        private BaseMotorController _ctre;
+        private CANSparkMax _spark;
+        private Priority _priority;
+        private Map<Frame, Integer> _requested = new EnumMap<>(Frame.class);
+        private Map<Frame, Integer> _assigned = new EnumMap<>(Frame.class);
+        private Set<Frame> _pinned = EnumSet.noneOf(Frame.class);
+
+        private Device(String name, BaseMotorController ctre, CANSparkMax spark, Priority priority) {
+            _name = name;
+            _ctre = ctre;
+            _spark = spark;
+            _priority = priority;
+            reset();
+        }
+
+        /**
+         * Declares that a signal is read from this controller at least every periodMs.
+         */
+        public Device need(Signal signal, int periodMs) {
+            for (Frame frame : Frame.values()) {
+                if (frame.carries(signal) && isSupported(frame)) {
+                    Integer current = _requested.get(frame);
+                    _requested.put(frame, current == null ? periodMs : Math.min(current, periodMs));
+                }
+            }
+            reset();
+            return this;
+        }
+
+        /**
+         * Declares that other controllers follow this one. Followers track the leader's output frame, so it is
+         * kept at the factory rate and never stretched.
+         */
+        public Device leads() {
+            for (Frame frame : Frame.values()) {
+                if (frame.carries(Signal.Output) && isSupported(frame)) {
+                    _requested.put(frame, frame.getDefaultPeriod());
+                    _pinned.add(frame);
+                }
+            }
+            reset();
+            return this;
+        }
+
+        private boolean isSupported(Frame frame) {
+            if (_spark != null) {
+                return frame.getSparkFrame() != null;
+            }
+            if (_ctre instanceof BaseTalon) {
+                return frame.getEnhancedFrame() != null;
+            }
+            return frame.getBasicFrame() != null;
+        }
+
+        private void reset() {
+            _assigned.clear();
+            for (Frame frame : Frame.values()) {
+                if (isSupported(frame)) {
+                    Integer requested = _requested.get(frame);
+                    _assigned.put(frame, requested == null ? getMaxPeriod() : requested);
+                }
+            }
+        }
+
+        private int getMaxPeriod() {
+            return _spark != null ? Constants.CAN.SPARK_MAX_PERIOD : Constants.CAN.CTRE_MAX_PERIOD;
+        }
+
+        private Frame getFastestStretchableFrame() {
+            Frame fastest = null;
+            for (Map.Entry<Frame, Integer> entry : _assigned.entrySet()) {
+                if (!_pinned.contains(entry.getKey()) && entry.getValue() < getMaxPeriod() && (fastest == null || entry.getValue() < _assigned.get(fastest))) {
+                    fastest = entry.getKey();
+                }
+            }
+            return fastest;
+        }
+
+        private void stretch(Frame frame) {
+            int period = Math.min(getMaxPeriod(), _assigned.get(frame) * 2);
+            debug(_name + " " + frame + " stretched to " + period + "ms");
+            _assigned.put(frame, period);
+        }
+
+        private double getFramesPerSecond() {
+            double framesPerSecond = 1000.0 / (_spark != null ? Constants.CAN.SPARK_CONTROL_PERIOD : Constants.CAN.CTRE_CONTROL_PERIOD);
+            for (int period : _assigned.values()) {
+                framesPerSecond += 1000.0 / period;
+            }
+            return framesPerSecond;
+        }
+
+        private void apply() {
+            for (Map.Entry<Frame, Integer> entry : _assigned.entrySet()) {
+                Frame frame = entry.getKey();
+                int period = entry.getValue();
+                try {
+                    if (_spark != null) {
+                        CANError error = _spark.setPeriodicFramePeriod(frame.getSparkFrame(), period);
+                        if (error != CANError.kOk) {
+                            warn(_name + " " + frame + " returned " + error);
+                        }
+                    } else {
+                        ErrorCode error = _ctre instanceof BaseTalon
+                                ? ((BaseTalon) _ctre).setStatusFramePeriod(frame.getEnhancedFrame(), period, Constants.CAN.CONFIG_TIMEOUT)
+                                : _ctre.setStatusFramePeriod(frame.getBasicFrame(), period, Constants.CAN.CONFIG_TIMEOUT);
+                        if (error != ErrorCode.OK) {
+                            warn(_name + " " + frame + " returned " + error);
+                        }
+                    }
+                } catch (Exception e) {
+                    error("Exception setting " + _name + " " + frame + ": " + e.getMessage());
+                }
+            }
+        }
+
+        public int getAssignedPeriod(Frame frame) {
+            Integer period = _assigned.get(frame);
+            return period == null ? 0 : period;
+        }
+    }
+
+    /**
+     * What a subsystem reads from a controller.  These map onto one or more status frames per controller type.
+     */
+    public enum Signal {
+        Output,      // Applied output, faults and limit switches
+        Sensor,      // Selected sensor position and velocity
+        Telemetry,   // Temperature, bus voltage and (SparkMax) current
+        Absolute,    // Pulse width (absolute) encoder, Talon SRX only
+        MotionMagic  // Motion magic / closed loop target, Talons only
+    }
+
+    public enum Priority {
+        Critical,
+        High,
+        Normal,
+        Low
+    }
+
+    public enum Frame {
+        // Default periods are the factory rates
+        CtreGeneral(StatusFrame.Status_1_General, StatusFrameEnhanced.Status_1_General, null, 10, Signal.Output),
+        CtreFeedback(StatusFrame.Status_2_Feedback0, StatusFrameEnhanced.Status_2_Feedback0, null, 20, Signal.Sensor),
+        CtreTelemetry(StatusFrame.Status_4_AinTempVbat, StatusFrameEnhanced.Status_4_AinTempVbat, null, 160, Signal.Telemetry),
+        CtrePulseWidth(null, StatusFrameEnhanced.Status_8_PulseWidth, null, 160, Signal.Absolute),
+        CtreMotionMagic(StatusFrame.Status_10_MotionMagic, StatusFrameEnhanced.Status_10_MotionMagic, null, 160, Signal.MotionMagic),
+        SparkStatus0(null, null, CANSparkMaxLowLevel.PeriodicFrame.kStatus0, 10, Signal.Output),
+        SparkStatus1(null, null, CANSparkMaxLowLevel.PeriodicFrame.kStatus1, 20, Signal.Sensor, Signal.Telemetry),
+        SparkStatus2(null, null, CANSparkMaxLowLevel.PeriodicFrame.kStatus2, 20, Signal.Sensor);
+
+        private StatusFrame _basicFrame;
+        private StatusFrameEnhanced _enhancedFrame;
+        private CANSparkMaxLowLevel.PeriodicFrame _sparkFrame;
+        private int _defaultPeriod;
+        private Signal[] _signals;
+
+        Frame(StatusFrame basicFrame, StatusFrameEnhanced enhancedFrame, CANSparkMaxLowLevel.PeriodicFrame sparkFrame, int defaultPeriod, Signal... signals) {
+            _basicFrame = basicFrame;
+            _enhancedFrame = enhancedFrame;
+            _sparkFrame = sparkFrame;
+            _defaultPeriod = defaultPeriod;
+            _signals = signals;
+        }
+
+        public StatusFrame getBasicFrame() { return _basicFrame; }
+        public StatusFrameEnhanced getEnhancedFrame() { return _enhancedFrame; }
+        public CANSparkMaxLowLevel.PeriodicFrame getSparkFrame() { return _sparkFrame; }
+        public int getDefaultPeriod() { return _defaultPeriod; }
+
+        public boolean carries(Signal signal) {
+            for (Signal s : _signals) {
+                if (s == signal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.geometry.Transform2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryUtil;
+import edu.wpi.first.wpilibj.util.Units;
+import jaci.pathfinder.PathfinderFRC;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads trajectories from the deploy directory.  The compileTrajectories gradle task turns every PathWeaver and
+ * Pathfinder path into a flat binary file which is memory-mapped and copied straight into states, with no parsing.
+ * If a compiled file is missing we fall back to the PathWeaver *.wpilib.json or Pathfinder *.pf1.csv.
+ * PathWeaver is set up in inches (see PathWeaver/pathweaver.json), so everything is converted to meters (at build
+ * time for compiled files) to match the odometry, kinematics and feedforward in DriveTrain.
+ */
+public class TrajectoryLoader {
+
+    public static Path getPath(String name) {
+        return Filesystem.getDeployDirectory().toPath()
+                .resolve(Constants.AutoDrivePath.PATHWEAVER_DIRECTORY)
+                .resolve(name + Constants.AutoDrivePath.PATHWEAVER_EXTENSION);
+    }
+
+    public static Path getCompiledPath(String name, String extension) {
+        return Filesystem.getDeployDirectory().toPath()
+                .resolve(Constants.AutoDrivePath.COMPILED_DIRECTORY)
+                .resolve(name + extension);
+    }
+
+    public static Trajectory load(String name) throws IOException {
+        Path compiled = getCompiledPath(name, Constants.AutoDrivePath.COMPILED_PATHWEAVER_EXTENSION);
+        if (!Files.exists(compiled)) {
+            RioLogger.warn(TrajectoryLoader.class.getSimpleName(), "No compiled trajectory for " + name + ", parsing json.");
+            return toMeters(TrajectoryUtil.fromPathweaverJson(getPath(name)));
+        }
+        DoubleBuffer data = map(compiled, 7);
+        int count = data.remaining() / 7;
+        List<Trajectory.State> states = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double time = data.get();
+            double velocity = data.get();
+            double acceleration = data.get();
+            double x = data.get();
+            double y = data.get();
+            double heading = data.get();
+            double curvature = data.get();
+            states.add(new Trajectory.State(time, velocity, acceleration, new Pose2d(x, y, new Rotation2d(heading)), curvature));
+        }
+        return new Trajectory(states);
+    }
+
+    /**
+     * Loads a Pathfinder trajectory (e.g. "HalfTrench.left") as PathfinderFRC.getTrajectory would, from the compiled
+     * file if there is one.
+     */
+    public static jaci.pathfinder.Trajectory loadPathfinder(String name) throws IOException {
+        Path compiled = getCompiledPath(name, Constants.AutoDrivePath.COMPILED_PATHFINDER_EXTENSION);
+        if (!Files.exists(compiled)) {
+            RioLogger.warn(TrajectoryLoader.class.getSimpleName(), "No compiled trajectory for " + name + ", parsing csv.");
+            return PathfinderFRC.getTrajectory(name);
+        }
+        DoubleBuffer data = map(compiled, 8);
+        jaci.pathfinder.Trajectory.Segment[] segments = new jaci.pathfinder.Trajectory.Segment[data.remaining() / 8];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new jaci.pathfinder.Trajectory.Segment(
+                    data.get(), data.get(), data.get(), data.get(), data.get(), data.get(), data.get(), data.get());
+        }
+        return new jaci.pathfinder.Trajectory(segments);
+    }
+
+    /**
+     * Maps a compiled trajectory and checks its header.  The mapping stays valid after the channel is closed.
+     */
+    private static DoubleBuffer map(Path path, int fields) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != Constants.AutoDrivePath.COMPILED_MAGIC) {
+                throw new IOException(path + " is not a compiled trajectory");
+            }
+            int count = buffer.getInt();
+            if (buffer.getInt() != fields) {
+                throw new IOException(path + " has the wrong number of values per state");
+            }
+            DoubleBuffer data = buffer.asDoubleBuffer();
+            if (data.remaining() < count * fields) {
+                throw new IOException(path + " is truncated");
+            }
+            data.limit(count * fields);
+            return data;
+        }
+    }
+
+    public static Trajectory toMeters(Trajectory trajectory) {
+        List<Trajectory.State> states = new ArrayList<>(trajectory.getStates().size());
+        for (Trajectory.State state : trajectory.getStates()) {
+            Translation2d translation = state.poseMeters.getTranslation();
+            states.add(new Trajectory.State(
+                    state.timeSeconds,
+                    Units.inchesToMeters(state.velocityMetersPerSecond),
+                    Units.inchesToMeters(state.accelerationMetersPerSecondSq),
+                    new Pose2d(Units.inchesToMeters(translation.getX()), Units.inchesToMeters(translation.getY()), state.poseMeters.getRotation()),
+                    state.curvatureRadPerMeter / Units.inchesToMeters(1)));
+        }
+        return new Trajectory(states);
+    }
+
+    /**
+     * Moves a trajectory so that it starts at the given pose, keeping its shape.  PathWeaver paths are drawn against
+     * the PathWeaver field origin, while our odometry uses the field-centered AutoPositions frame.
+     */
+    public static Trajectory relativeTo(Trajectory trajectory, Pose2d origin) {
+        Pose2d initial = trajectory.getInitialPose();
+        List<Trajectory.State> states = new ArrayList<>(trajectory.getStates().size());
+        for (Trajectory.State state : trajectory.getStates()) {
+            states.add(new Trajectory.State(
+                    state.timeSeconds,
+                    state.velocityMetersPerSecond,
+                    state.accelerationMetersPerSecondSq,
+                    origin.plus(new Transform2d(initial, state.poseMeters)),
+                    state.curvatureRadPerMeter));
+        }
+        return new Trajectory(states);
+    }
+}
@@ -0,0 +1,220 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads and validates every deployed trajectory on a background thread (started from robotInit, and again when
+ * disabled to pick up anything that failed), so that building an auto command is just a map lookup.  Commands share
+ * the loaded instances, which must be treated as read-only.  Anything asked for that wasn't preloaded is loaded on
+ * the spot and reported as missing.
+ */
+public class TrajectoryRegistry extends OutliersProxy {
+    private static TrajectoryRegistry _instance;
+
+    public static TrajectoryRegistry getInstance() {
+        if (_instance == null) {
+            _instance = new TrajectoryRegistry();
+        }
+        return _instance;
+    }
+
+    private Map<String, jaci.pathfinder.Trajectory> _pathfinder = new ConcurrentHashMap<>();
+    private Map<String, Trajectory> _pathWeaver = new ConcurrentHashMap<>();
+    private Set<String> _missing = new TreeSet<>();
+    private Set<String> _invalid = new TreeSet<>();
+
+    private Thread _thread;
+    private volatile boolean _loading = false;
+    private volatile double _loadMillis;
+    private volatile int _loadedCount;
+
+    private TrajectoryRegistry() {
+    }
+
+    /**
+     * Starts loading in the background, unless a load is already running.  Already loaded paths are skipped.
+     */
+    public synchronized void start() {
+        if (_loading) {
+            return;
+        }
+        _loading = true;
+        _thread = new Thread(this::loadAll, "TrajectoryRegistry");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    public boolean isLoading() {
+        return _loading;
+    }
+
+    /**
+     * Gets a Pathfinder trajectory, e.g. "HalfTrench.left".
+     */
+    public jaci.pathfinder.Trajectory getPathfinder(String name) throws Exception {
+        jaci.pathfinder.Trajectory trajectory = _pathfinder.get(name);
+        if (trajectory == null) {
+            reportMissing(name);
+            trajectory = loadPathfinder(name);
+        }
+        return trajectory;
+    }
+
+    /**
+     * Gets a PathWeaver trajectory, in meters.
+     */
+    public Trajectory getPathWeaver(String name) throws Exception {
+        Trajectory trajectory = _pathWeaver.get(name);
+        if (trajectory == null) {
+            reportMissing(name);
+            trajectory = loadPathWeaver(name);
+        }
+        return trajectory;
+    }
+
+    private void loadAll() {
+        long start = System.nanoTime();
+        try {
+            Set<String> pathfinderNames = new TreeSet<>();
+            Set<String> pathWeaverNames = new TreeSet<>();
+            File deploy = Filesystem.getDeployDirectory();
+            collect(new File(deploy, Constants.AutoDrivePath.COMPILED_DIRECTORY), Constants.AutoDrivePath.COMPILED_PATHFINDER_EXTENSION, pathfinderNames);
+            collect(new File(deploy, Constants.AutoDrivePath.PATHFINDER_DIRECTORY), Constants.AutoDrivePath.PATHFINDER_EXTENSION, pathfinderNames);
+            collect(new File(deploy, Constants.AutoDrivePath.COMPILED_DIRECTORY), Constants.AutoDrivePath.COMPILED_PATHWEAVER_EXTENSION, pathWeaverNames);
+            collect(new File(deploy, Constants.AutoDrivePath.PATHWEAVER_DIRECTORY), Constants.AutoDrivePath.PATHWEAVER_EXTENSION, pathWeaverNames);
+
+            for (String name : pathfinderNames) {
+                // Only the per-side trajectories are followed.
+                if (!_pathfinder.containsKey(name) && (name.endsWith(".left") || name.endsWith(".right"))) {
+                    try {
+                        loadPathfinder(name);
+                    } catch (Exception e) {
+                        error("Error loading " + name + ": " + e.getMessage());
+                    }
+                }
+            }
+            for (String name : pathWeaverNames) {
+                if (!_pathWeaver.containsKey(name)) {
+                    try {
+                        loadPathWeaver(name);
+                    } catch (Exception e) {
+                        error("Error loading " + name + ": " + e.getMessage());
+                    }
+                }
+            }
+            for (String name : Constants.AutoDrivePath.REQUIRED_PATHS) {
+                if (!_pathfinder.containsKey(name + ".left") || !_pathfinder.containsKey(name + ".right")) {
+                    reportMissing(name);
+                }
+            }
+        } catch (Exception e) {
+            error("Exception preloading trajectories: " + e.getMessage());
+        } finally {
+            _loadMillis = (System.nanoTime() - start) / 1000000.0;
+            _loadedCount = _pathfinder.size() + _pathWeaver.size();
+            info("Preloaded " + _loadedCount + " trajectories in " + Math.round(_loadMillis) + "ms");
+            _loading = false;
+        }
+    }
+
+    private void collect(File directory, String extension, Set<String> names) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(extension)) {
+                names.add(file.getName().substring(0, file.getName().length() - extension.length()));
+            }
+        }
+    }
+
+    private jaci.pathfinder.Trajectory loadPathfinder(String name) throws Exception {
+        long start = System.nanoTime();
+        jaci.pathfinder.Trajectory trajectory = TrajectoryLoader.loadPathfinder(name);
+        String problem = validate(trajectory);
+        if (problem != null) {
+            reportInvalid(name, problem);
+            throw new Exception(name + " " + problem);
+        }
+        _pathfinder.put(name, trajectory);
+        debug("Loaded " + name + " (" + trajectory.length() + " segments) in " + (System.nanoTime() - start) / 1000 + "us");
+        return trajectory;
+    }
+
+    private Trajectory loadPathWeaver(String name) throws Exception {
+        long start = System.nanoTime();
+        Trajectory trajectory = TrajectoryLoader.load(name);
+        String problem = validate(trajectory);
+        if (problem != null) {
+            reportInvalid(name, problem);
+            throw new Exception(name + " " + problem);
+        }
+        _pathWeaver.put(name, trajectory);
+        debug("Loaded " + name + " (" + trajectory.getStates().size() + " states) in " + (System.nanoTime() - start) / 1000 + "us");
+        return trajectory;
+    }
+
+    private String validate(jaci.pathfinder.Trajectory trajectory) {
+        if (trajectory == null || trajectory.length() == 0) {
+            return "is empty";
+        }
+        for (int i = 0; i < trajectory.length(); i++) {
+            jaci.pathfinder.Trajectory.Segment segment = trajectory.get(i);
+            if (!(segment.dt > 0)) {
+                return "has a non-positive dt at segment " + i;
+            }
+            if (Double.isNaN(segment.position) || Double.isNaN(segment.velocity) || Double.isNaN(segment.heading)) {
+                return "has NaN at segment " + i;
+            }
+        }
+        return null;
+    }
+
+    private String validate(Trajectory trajectory) {
+        if (trajectory == null || trajectory.getStates().isEmpty()) {
+            return "is empty";
+        }
+        double previousTime = -1;
+        for (int i = 0; i < trajectory.getStates().size(); i++) {
+            Trajectory.State state = trajectory.getStates().get(i);
+            if (!(state.timeSeconds > previousTime)) {
+                return "goes back in time at state " + i;
+            }
+            if (Double.isNaN(state.velocityMetersPerSecond) || Double.isNaN(state.poseMeters.getTranslation().getX())) {
+                return "has NaN at state " + i;
+            }
+            previousTime = state.timeSeconds;
+        }
+        return null;
+    }
+
+    private synchronized void reportMissing(String name) {
+        if (_missing.add(name)) {
+            warn("Trajectory " + name + (_loading ? " was requested before preloading finished" : " was not preloaded"));
+        }
+    }
+
+    private synchronized void reportInvalid(String name, String problem) {
+        if (_invalid.add(name)) {
+            error("Trajectory " + name + " " + problem);
+        }
+    }
+
+    @Override
+    public synchronized void updateDashboard() {
+        metric("Loading", _loading);
+        metric("Loaded", _loadedCount);
+        metric("LoadMillis", _loadMillis);
+        metric("Missing", String.join(",", _missing));
+        metric("Invalid", String.join(",", _invalid));
+    }
+}
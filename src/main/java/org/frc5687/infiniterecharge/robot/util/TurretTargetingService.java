@@ -0,0 +1,170 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.MedianFilter;
+import edu.wpi.first.wpilibj.Timer;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.DriveTrain;
+import org.frc5687.infiniterecharge.robot.subsystems.Turret;
+
+/**
+ * The one place turret setpoints come from when aiming at the target (AutoTarget, AutoTurretTracking).
+ *
+ * The limelight's tx is measured against where the turret was pointing when the frame was captured, which is
+ * getLatency() ms ago.  If we add it to where the turret is now, we overshoot whenever the turret or the robot is
+ * moving.  So every loop (update, from Turret.periodic) we record turret angle and robot yaw, and when aiming we look
+ * both up at the capture time: the target is at turret-then + tx, less however far the robot has turned since.
+ * That gives an absolute setpoint that holds still while the turret moves, so it's median filtered rather than tx.
+ *
+ * Each time the setpoint jumps by more than SETTLE_STEP we time how long the turret takes to get within tolerance.
+ */
+public class TurretTargetingService extends OutliersProxy {
+    private Turret _turret;
+    private DriveTrain _driveTrain;
+    private Limelight _limelight;
+
+    private double[] _times = new double[Constants.TurretTargeting.HISTORY_SIZE];
+    private double[] _turretAngles = new double[Constants.TurretTargeting.HISTORY_SIZE];
+    private double[] _yaws = new double[Constants.TurretTargeting.HISTORY_SIZE];
+    private int _next = 0;
+    private int _count = 0;
+
+    private MedianFilter _filter = new MedianFilter(Constants.TurretTargeting.FILTER_SIZE);
+    private boolean _sighted = false;
+    private double _compensation;
+
+    private double _settleFrom = Double.NaN;
+    private double _settleStart;
+    private boolean _settling = false;
+    private double _lastSettleMillis;
+    private double _averageSettleMillis;
+    private int _settleCount;
+
+    public TurretTargetingService(Turret turret, DriveTrain driveTrain, Limelight limelight) {
+        _turret = turret;
+        _driveTrain = driveTrain;
+        _limelight = limelight;
+    }
+
+    /**
+     * Records turret angle and yaw, and checks whether the turret has settled.  Call every loop.
+     */
+    public void update() {
+        double now = Timer.getFPGATimestamp();
+        _times[_next] = now;
+        _turretAngles[_next] = _turret.getPositionDegrees();
+        _yaws[_next] = _driveTrain.getYaw();
+        _next = (_next + 1) % _times.length;
+        _count = Math.min(_count + 1, _times.length);
+
+        if (_settling) {
+            if (_turret.isAtSetpoint()) {
+                _lastSettleMillis = (now - _settleStart) * 1000;
+                _settleCount++;
+                _averageSettleMillis += (_lastSettleMillis - _averageSettleMillis) / _settleCount;
+                _settling = false;
+            } else if (now - _settleStart > Constants.TurretTargeting.SETTLE_TIMEOUT) {
+                _settling = false;
+            }
+        }
+    }
+
+    /**
+     * Aims with vision if the limelight sees the target, otherwise from odometry.
+     */
+    public double aim(double offset) {
+        return _limelight.isTargetSighted() ? aimWithVision(offset) : aimWithOdometry(offset);
+    }
+
+    public double aimWithVision(double offset) {
+        if (!_limelight.isTargetSighted()) {
+            _sighted = false;
+            return aimWithOdometry(offset);
+        }
+        if (!_sighted) {
+            // New lock, don't let old frames vote.
+            _filter.reset();
+            _sighted = true;
+        }
+        double captureTime = Timer.getFPGATimestamp() - _limelight.getLatency() / 1000.0;
+        double turretThen = lookup(_turretAngles, captureTime, _turret.getPositionDegrees());
+        double yawThen = lookup(_yaws, captureTime, _driveTrain.getYaw());
+        // Turret angles follow DriveTrain.getAngleToTarget, where heading is -yaw, so turning the robot by +yaw means
+        // the turret has to come back by the same amount.
+        double turned = boundHalfDegrees(_driveTrain.getYaw() - yawThen);
+        double target = turretThen + _limelight.getHorizontalAngle() - turned;
+        _compensation = target - (_turret.getPositionDegrees() + _limelight.getHorizontalAngle());
+        return command(_filter.calculate(target) + offset);
+    }
+
+    public double aimWithOdometry(double offset) {
+        _sighted = false;
+        return command(_driveTrain.getAngleToTarget() + offset);
+    }
+
+    /**
+     * Keeps the turret where it was last told to go.
+     */
+    public double hold() {
+        return command(_turret.getSetpoint());
+    }
+
+    public void reset() {
+        _filter.reset();
+        _sighted = false;
+    }
+
+    private double command(double setpoint) {
+        _turret.setMotionMagicSetpoint(setpoint);
+        double limited = _turret.getSetpoint();
+        if (Double.isNaN(_settleFrom) || Math.abs(limited - _settleFrom) > Constants.TurretTargeting.SETTLE_STEP) {
+            _settleFrom = limited;
+            _settleStart = Timer.getFPGATimestamp();
+            _settling = true;
+        }
+        return limited;
+    }
+
+    /**
+     * Value of a recorded series at the given time, interpolated between samples.  Falls back to the current value if
+     * there's no history, and to the oldest sample if the time is older than we keep.
+     */
+    private double lookup(double[] values, double time, double current) {
+        if (_count == 0) {
+            return current;
+        }
+        int newer = (_next - 1 + _times.length) % _times.length;
+        if (time >= _times[newer]) {
+            return values[newer];
+        }
+        for (int i = 1; i < _count; i++) {
+            int older = (newer - 1 + _times.length) % _times.length;
+            if (_times[older] <= time) {
+                double span = _times[newer] - _times[older];
+                double fraction = span > 0 ? (time - _times[older]) / span : 0;
+                return values[older] + (values[newer] - values[older]) * fraction;
+            }
+            newer = older;
+        }
+        return values[newer];
+    }
+
+    private double boundHalfDegrees(double angle) {
+        while (angle >= 180) {
+            angle -= 360;
+        }
+        while (angle < -180) {
+            angle += 360;
+        }
+        return angle;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("Sighted", _sighted);
+        metric("Compensation", _compensation);
+        metric("Settling", _settling);
+        metric("LastSettleMillis", _lastSettleMillis);
+        metric("AverageSettleMillis", _averageSettleMillis);
+        metric("SettleCount", _settleCount);
+    }
+}
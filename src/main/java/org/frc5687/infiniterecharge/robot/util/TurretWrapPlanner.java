@@ -0,0 +1,159 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.Timer;
+import org.frc5687.infiniterecharge.robot.Constants;
+
+/**
+ * Picks where to send the turret for a desired angle.  The turret covers MIN_DEGREES to MAX_DEGREES, which is less
+ * than a full turn, so most angles have exactly one reachable equivalent and the rest (the dead zone past the soft
+ * limits) have none.  The choices are then:
+ *
+ *  - in the dead zone, wait at whichever limit the target is nearest or, if it's moving, whichever limit it will come
+ *    out at once the turret could get there in time;
+ *  - in range but moving toward a limit, pre-unwind: start swinging round to the far limit as soon as the target
+ *    would come out there before the turret could, rather than running into the limit and swinging late.
+ *
+ * Travel times come from the MotionMagic cruise velocity and acceleration, starting from the turret's current
+ * velocity.  The target's rate is estimated from successive desired angles.  How often each case comes up is counted
+ * for the dashboard.
+ */
+public class TurretWrapPlanner extends OutliersProxy {
+    private static final double RANGE = Constants.Turret.MAX_DEGREES - Constants.Turret.MIN_DEGREES;
+    private static final double DEAD_ZONE = 360 - RANGE;
+    private static final double CRUISE = Constants.Turret.CRUISE_VELOCITY * Constants.Turret.TICKS_TO_DEGREES * 10; // deg/s
+    private static final double ACCELERATION = Constants.Turret.ACCELERATION * Constants.Turret.TICKS_TO_DEGREES * 10; // deg/s/s
+
+    private double _lastDesired = Double.NaN;
+    private double _lastTime;
+    private double _targetRate;
+    private Case _lastCase;
+    private int[] _counts = new int[Case.values().length];
+
+    /**
+     * @param desired angle we want to point at, any wrap
+     * @param position current turret angle
+     * @param velocity current turret velocity, degrees per second
+     * @return reachable setpoint
+     */
+    public double plan(double desired, double position, double velocity) {
+        updateTargetRate(desired);
+        int direction = Math.abs(_targetRate) < Constants.Turret.WRAP_MIN_TARGET_RATE ? 0 : (int) Math.signum(_targetRate);
+
+        double reachable = reachable(desired);
+        if (!Double.isNaN(reachable)) {
+            if (direction != 0) {
+                // Time until the target has crossed the dead zone and comes out at the far limit.
+                double limit = direction > 0 ? Constants.Turret.MAX_DEGREES : Constants.Turret.MIN_DEGREES;
+                double farLimit = direction > 0 ? Constants.Turret.MIN_DEGREES : Constants.Turret.MAX_DEGREES;
+                double emerge = (Math.abs(limit - reachable) + DEAD_ZONE) / Math.abs(_targetRate);
+                if (emerge <= travelTime(position, velocity, farLimit)) {
+                    return count(Case.PreUnwind, farLimit);
+                }
+            }
+            return count(reachable == desired ? Case.Direct : Case.Wrapped, reachable);
+        }
+
+        // In the dead zone: how far past MAX the target is, and how far short of MIN.
+        double pastMax = desired - Constants.Turret.MAX_DEGREES;
+        pastMax -= 360 * Math.floor(pastMax / 360);
+        double shortOfMin = DEAD_ZONE - pastMax;
+        if (direction != 0) {
+            double exit = direction > 0 ? Constants.Turret.MIN_DEGREES : Constants.Turret.MAX_DEGREES;
+            double entry = direction > 0 ? Constants.Turret.MAX_DEGREES : Constants.Turret.MIN_DEGREES;
+            double emerge = (direction > 0 ? shortOfMin : pastMax) / Math.abs(_targetRate);
+            if (emerge <= travelTime(position, velocity, exit)) {
+                return count(Case.DeadZoneAhead, exit);
+            }
+            return count(Case.DeadZoneWait, entry);
+        }
+        if (pastMax == shortOfMin) {
+            double toMax = travelTime(position, velocity, Constants.Turret.MAX_DEGREES);
+            double toMin = travelTime(position, velocity, Constants.Turret.MIN_DEGREES);
+            return count(Case.DeadZoneWait, toMax <= toMin ? Constants.Turret.MAX_DEGREES : Constants.Turret.MIN_DEGREES);
+        }
+        return count(Case.DeadZoneWait, pastMax < shortOfMin ? Constants.Turret.MAX_DEGREES : Constants.Turret.MIN_DEGREES);
+    }
+
+    /**
+     * @return the equivalent of angle inside the turret's range, or NaN if it's in the dead zone.
+     */
+    private double reachable(double angle) {
+        double wrapped = angle - 360 * Math.floor((angle - Constants.Turret.MIN_DEGREES) / 360);
+        return wrapped <= Constants.Turret.MAX_DEGREES ? wrapped : Double.NaN;
+    }
+
+    private void updateTargetRate(double desired) {
+        double now = Timer.getFPGATimestamp();
+        double dt = now - _lastTime;
+        if (Double.isNaN(_lastDesired) || dt <= 0 || dt > Constants.Turret.WRAP_RATE_RESET_TIME) {
+            _targetRate = 0;
+        } else {
+            double change = desired - _lastDesired;
+            change -= 360 * Math.round(change / 360);
+            if (Math.abs(change) > Constants.Turret.WRAP_JUMP) {
+                // A new target rather than the same one moving.
+                _targetRate = 0;
+            } else {
+                double alpha = dt / (Constants.Turret.WRAP_RATE_TIME_CONSTANT + dt);
+                _targetRate += alpha * (change / dt - _targetRate);
+            }
+        }
+        _lastDesired = desired;
+        _lastTime = now;
+    }
+
+    /**
+     * Seconds for a trapezoidal move from 'from' (moving at velocity) to a stop at 'to'.
+     */
+    private double travelTime(double from, double velocity, double to) {
+        double distance = Math.abs(to - from);
+        double speed = velocity * Math.signum(to - from);
+        double time = 0;
+        if (speed < 0) {
+            // Moving the wrong way: stop first, which adds the stopping distance.
+            time += -speed / ACCELERATION;
+            distance += speed * speed / (2 * ACCELERATION);
+            speed = 0;
+        }
+        double stopping = speed * speed / (2 * ACCELERATION);
+        if (stopping > distance) {
+            // Overshoot, then come back from rest.
+            return time + speed / ACCELERATION + restToRest(stopping - distance);
+        }
+        double rampUpAndDown = (CRUISE * CRUISE - speed * speed) / (2 * ACCELERATION) + CRUISE * CRUISE / (2 * ACCELERATION);
+        if (rampUpAndDown <= distance) {
+            return time + (CRUISE - speed) / ACCELERATION + CRUISE / ACCELERATION + (distance - rampUpAndDown) / CRUISE;
+        }
+        double peak = Math.sqrt((2 * ACCELERATION * distance + speed * speed) / 2);
+        return time + (peak - speed) / ACCELERATION + peak / ACCELERATION;
+    }
+
+    private double restToRest(double distance) {
+        return travelTime(0, 0, distance);
+    }
+
+    private double count(Case wrapCase, double setpoint) {
+        if (wrapCase != _lastCase) {
+            _counts[wrapCase.ordinal()]++;
+            _lastCase = wrapCase;
+        }
+        return setpoint;
+    }
+
+    @Override
+    public void updateDashboard() {
+        metric("TargetRate", _targetRate);
+        metric("Case", _lastCase == null ? "" : _lastCase.name());
+        for (Case wrapCase : Case.values()) {
+            metric("Count/" + wrapCase.name(), _counts[wrapCase.ordinal()]);
+        }
+    }
+
+    public enum Case {
+        Direct,
+        Wrapped,
+        PreUnwind,
+        DeadZoneWait,
+        DeadZoneAhead
+    }
+}
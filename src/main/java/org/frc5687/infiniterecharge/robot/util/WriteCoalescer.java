@@ -0,0 +1,83 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for the output wrappers (CoalescedMotorController, CoalescedSparkMax, CoalescedPWM).  A write is only
+ * passed through to the device when the mode or value changes, or when the optional keep-alive period has elapsed
+ * since the last real write.  Every suppressed write is counted so we can see what we're saving.
+ */
+public abstract class WriteCoalescer {
+    private static List<WriteCoalescer> _allCoalescers = new ArrayList<>();
+
+    /**
+     * Publishes the per-output and total count of suppressed writes.
+     */
+    public static void updateDashboardAll() {
+        long total = 0;
+        for (WriteCoalescer coalescer : _allCoalescers) {
+            SmartDashboard.putNumber("WriteCoalescer/" + coalescer._name + "/Saved", coalescer._saved);
+            total += coalescer._saved;
+        }
+        SmartDashboard.putNumber("WriteCoalescer/Saved", total);
+    }
+
+    private String _name;
+    private long _keepAliveMillis;
+
+    private Object _lastMode;
+    private double _lastValue = Double.NaN;
+    private long _lastWriteMillis;
+
+    private long _writes = 0;
+    private long _saved = 0;
+
+    protected WriteCoalescer(String name, long keepAliveMillis) {
+        _name = name;
+        _keepAliveMillis = keepAliveMillis;
+        _allCoalescers.add(this);
+    }
+
+    /**
+     * @return true if the write must go to the device, false if it duplicates the last one.
+     */
+    protected synchronized boolean needsWrite(Object mode, double value) {
+        long now = System.currentTimeMillis();
+        if (mode == _lastMode && value == _lastValue && (_keepAliveMillis <= 0 || now - _lastWriteMillis < _keepAliveMillis)) {
+            _saved++;
+            return false;
+        }
+        _lastMode = mode;
+        _lastValue = value;
+        _lastWriteMillis = now;
+        _writes++;
+        return true;
+    }
+
+    /**
+     * Forces the next write through, e.g. after something other than this wrapper has changed the output.
+     */
+    public synchronized void invalidate() {
+        _lastMode = null;
+        _lastValue = Double.NaN;
+    }
+
+    public double getLastValue() {
+        return _lastValue;
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    public long getWrites() {
+        return _writes;
+    }
+
+    public long getSaved() {
+        return _saved;
+    }
+}
@@ -0,0 +1,74 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.controller.PIDController;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.Shifter;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Micro-benchmarks of each DriveSignalPipeline stage, in nanoseconds per call less the cost of process() with no
+ * stages.  Timing depends on the machine, so this is left out of the normal test run and only reports; run it with
+ * ./gradlew benchmark and compare numbers from the same machine.
+ */
+public class DriveSignalPipelineBenchmark {
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 200000;
+
+    private double _yaw;
+    private double _sink;
+    private DriveSignalPipeline _pipeline;
+
+    @Before
+    public void setUp() {
+        PIDController angleController = new PIDController(Constants.DriveStraight.kP_ANGLE, Constants.DriveStraight.kI_ANGLE, Constants.DriveStraight.kD_ANGLE, Constants.UPDATE_PERIOD);
+        angleController.enableContinuousInput(-180, 180);
+        _pipeline = new DriveSignalPipeline(() -> _yaw, angleController);
+    }
+
+    @Test
+    public void benchmarkStages() {
+        double baseline = benchmark();
+        report("Deadband", benchmark(_pipeline.getDeadband()) - baseline);
+        report("Sensitivity", benchmark(_pipeline.getSensitivity()) - baseline);
+        report("SlewRateLimit", benchmark(_pipeline.getSlewRateLimit()) - baseline);
+        report("HeadingHold", benchmark(_pipeline.getHeadingHold()) - baseline);
+        double mix = benchmark(_pipeline.getMix());
+        report("Desaturate", benchmark(_pipeline.getMix(), _pipeline.getDesaturate()) - mix);
+        report("process() with no stages", baseline);
+        // Keeps the JIT from throwing the work away
+        report("(checksum)", _sink);
+    }
+
+    private void report(String stage, double nanos) {
+        System.out.println(stage + ": " + Math.round(nanos) + "ns per call");
+    }
+
+    /**
+     * @return average nanoseconds per process() call with just these stages, over inputs that hit every branch
+     */
+    private double benchmark(DriveSignalPipeline.Stage... stages) {
+        _pipeline.setOrder(stages);
+        double[] inputs = new double[1024];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = Math.sin(i * 0.37) * 1.1;
+        }
+        for (int i = 0; i < WARMUP; i++) {
+            _sink += run(inputs, i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            _sink += run(inputs, i);
+        }
+        return (double) (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private double run(double[] inputs, int i) {
+        int mask = inputs.length - 1;
+        _yaw = inputs[(i * 7) & mask] * 180;
+        // Rotation is zero for a stretch at a time so the heading hold engages
+        double rotation = (i & 64) == 0 ? 0 : inputs[(i * 3) & mask];
+        DriveSignalPipeline.DriveSignal signal = _pipeline.process(inputs[i & mask], rotation, false, (i & 1) == 0, Shifter.Gear.LOW);
+        return signal.getLeft() + signal.getRight() + signal.getSpeed() + signal.getRotation();
+    }
+}
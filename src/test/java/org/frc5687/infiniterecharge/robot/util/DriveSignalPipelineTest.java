@@ -0,0 +1,112 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.controller.PIDController;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.subsystems.Shifter;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of each DriveSignalPipeline stage.  What they cost is measured by DriveSignalPipelineBenchmark.
+ */
+public class DriveSignalPipelineTest {
+    private static final double EPSILON = 1e-9;
+
+    private double _yaw;
+    private DriveSignalPipeline _pipeline;
+
+    @Before
+    public void setUp() {
+        _yaw = 0;
+        PIDController angleController = new PIDController(Constants.DriveStraight.kP_ANGLE, Constants.DriveStraight.kI_ANGLE, Constants.DriveStraight.kD_ANGLE, Constants.UPDATE_PERIOD);
+        angleController.enableContinuousInput(-180, 180);
+        _pipeline = new DriveSignalPipeline(() -> _yaw, angleController);
+    }
+
+    private DriveSignalPipeline.DriveSignal process(double speed, double rotation, boolean override) {
+        return _pipeline.process(speed, rotation, false, override, Shifter.Gear.LOW);
+    }
+
+    @Test
+    public void deadbandTurnsInPlace() {
+        _pipeline.setOrder(_pipeline.getDeadband(), _pipeline.getMix());
+
+        DriveSignalPipeline.DriveSignal signal = process(Constants.DriveTrain.DEADBAND / 2, 0.5, false);
+        assertEquals(0, signal.getSpeed(), EPSILON);
+        assertEquals(0.5 * Constants.DriveTrain.TURN_IN_PLACE_FACTOR, signal.getLeft(), EPSILON);
+        assertEquals(-0.5 * Constants.DriveTrain.TURN_IN_PLACE_FACTOR, signal.getRight(), EPSILON);
+
+        double speed = Constants.DriveTrain.DEADBAND + 0.1;
+        signal = process(-speed, 0, false);
+        assertEquals(-speed, signal.getSpeed(), EPSILON);
+        assertEquals(-speed, signal.getLeft(), EPSILON);
+        assertEquals(-speed, signal.getRight(), EPSILON);
+    }
+
+    @Test
+    public void sensitivityTableMatchesCurve() {
+        _pipeline.setOrder(_pipeline.getSensitivity());
+        for (double input = -1; input <= 1; input += 0.0037) {
+            double expected = Helpers.applySensitivityFactor(input, Constants.DriveTrain.SPEED_SENSITIVITY);
+            assertEquals("speed " + input, expected, process(input, 0, false).getSpeed(), 1e-3);
+        }
+        assertEquals(1, process(1.5, 0, false).getSpeed(), EPSILON);
+        assertEquals(-1, process(-1.5, 0, false).getSpeed(), EPSILON);
+    }
+
+    @Test
+    public void slewRateLimitsSpeedChange() {
+        _pipeline.setOrder(_pipeline.getSlewRateLimit());
+        double increment = Constants.DriveTrain.RAMP_INCREMENT_LOWGEAR;
+        assertEquals(increment, process(1, 0, false).getSpeed(), EPSILON);
+        assertEquals(2 * increment, process(1, 0, false).getSpeed(), EPSILON);
+        assertEquals(increment, process(-1, 0, false).getSpeed(), EPSILON);
+        assertEquals(increment + 0.001, process(increment + 0.001, 0, false).getSpeed(), EPSILON);
+    }
+
+    @Test
+    public void headingHoldCorrectsDrift() {
+        _pipeline.setOrder(_pipeline.getHeadingHold());
+
+        _yaw = 30;
+        DriveSignalPipeline.DriveSignal signal = process(0.5, 0, false);
+        assertTrue(signal.isHoldingHeading());
+        assertEquals(0, signal.getRotation(), EPSILON);
+        assertEquals(30, _pipeline.getHeadingHold().getTargetAngle(), EPSILON);
+
+        // Drifted right, so turn back left, but never by more than MAX_HOLD_ROTATION
+        _yaw = 40;
+        signal = process(0.5, 0, false);
+        assertTrue(signal.isHoldingHeading());
+        assertTrue(signal.getRotation() < 0);
+        assertTrue(signal.getRotation() >= -Constants.DriveStraight.MAX_HOLD_ROTATION);
+
+        // Any rotation input or stopping lets go
+        signal = process(0.5, 0.2, false);
+        assertFalse(signal.isHoldingHeading());
+        assertEquals(0.2, signal.getRotation(), EPSILON);
+        assertFalse(process(0, 0, false).isHoldingHeading());
+    }
+
+    @Test
+    public void desaturateKeepsTurnWithOverride() {
+        _pipeline.setOrder(_pipeline.getMix(), _pipeline.getDesaturate());
+
+        DriveSignalPipeline.DriveSignal signal = process(1, 0.5, true);
+        assertEquals(1, signal.getLeft(), EPSILON);
+        assertEquals(0, signal.getRight(), EPSILON);
+
+        signal = process(-1, 0.5, true);
+        assertEquals(0, signal.getLeft(), EPSILON);
+        assertEquals(-1, signal.getRight(), EPSILON);
+
+        // Without override each side is just clipped
+        signal = process(1, 0.5, false);
+        assertEquals(1, signal.getLeft(), EPSILON);
+        assertEquals(0.5, signal.getRight(), EPSILON);
+    }
+}
@@ -0,0 +1,78 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds synthetic flywheel RPM traces through the ShotDetector, one sample per SAMPLE_PERIOD.
+ */
+public class ShotDetectorTest {
+    private static final double TARGET = 4000;
+
+    private ShotDetector _detector;
+    private double _now;
+    private double _rpm;
+
+    @Before
+    public void setUp() {
+        _detector = new ShotDetector(() -> 0, () -> 0, false);
+        _now = 0;
+        _rpm = TARGET;
+        hold(TARGET, 0.1);
+    }
+
+    /**
+     * Moves the RPM in a straight line to rpm over the given seconds.
+     */
+    private void ramp(double rpm, double seconds) {
+        int samples = (int) Math.round(seconds / Constants.ShotDetector.SAMPLE_PERIOD);
+        double start = _rpm;
+        for (int i = 1; i <= samples; i++) {
+            _now += Constants.ShotDetector.SAMPLE_PERIOD;
+            _rpm = start + (rpm - start) * i / samples;
+            _detector.sample(_now, _rpm, TARGET);
+        }
+    }
+
+    private void hold(double rpm, double seconds) {
+        _rpm = rpm;
+        ramp(rpm, seconds);
+    }
+
+    @Test
+    public void singleDeepDipIsOneBall() {
+        ramp(TARGET - 600, 0.04);
+        assertTrue(_detector.isInDip());
+        ramp(TARGET, 0.25);
+        hold(TARGET, 0.1);
+        assertFalse(_detector.isInDip());
+        assertEquals(1, _detector.getCount());
+    }
+
+    @Test
+    public void doubleDipIsTwoBalls() {
+        // Recovers by more than REBOUND (still short of tolerance), then the next ball knocks it down again
+        ramp(TARGET - 300, 0.03);
+        ramp(TARGET - 150, 0.08);
+        ramp(TARGET - 450, 0.03);
+        ramp(TARGET, 0.25);
+        hold(TARGET, 0.1);
+        assertEquals(2, _detector.getCount());
+    }
+
+    @Test
+    public void wobbleAtTheBottomIsOneBall() {
+        // Less than REBOUND of recovery before falling again isn't a second ball
+        ramp(TARGET - 400, 0.03);
+        ramp(TARGET - 400 + Constants.ShotDetector.REBOUND / 2, 0.02);
+        ramp(TARGET - 550, 0.02);
+        ramp(TARGET, 0.25);
+        hold(TARGET, 0.1);
+        assertEquals(1, _detector.getCount());
+    }
+}
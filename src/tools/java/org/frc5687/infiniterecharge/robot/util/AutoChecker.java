@@ -0,0 +1,185 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import edu.wpi.first.wpilibj.trajectory.TrajectoryUtil;
+import edu.wpi.first.wpilibj.util.Units;
+import jaci.pathfinder.Pathfinder;
+import jaci.pathfinder.Trajectory;
+import org.frc5687.infiniterecharge.robot.Constants;
+import org.frc5687.infiniterecharge.robot.commands.AutoRoutine;
+import org.frc5687.infiniterecharge.robot.commands.AutoRoutines;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Desktop check of the autonomous paths and routines, run with ./gradlew checkAuto (not deployed).  Every PathWeaver
+ * and Pathfinder trajectory is checked against the velocity and acceleration limits in Constants.DriveTrain, including
+ * the outside wheel's speed through curves.  Then the AutoRoutine each AutoChooser.Mode runs estimates how long it
+ * takes against the 15 second auto period, from the same steps that build the commands on the robot.
+ *
+ * Exits non-zero if any path breaks a limit, a path is missing, or a mode runs long.
+ */
+public class AutoChecker {
+    private static final double TOLERANCE = 1.05; // allowed over the limit, for rounding in the generators
+    private static final double AUTO_SECONDS = 15;
+
+    private static final double MAX_SPEED = Constants.DriveTrain.MAX_SPEED_IPS;
+    private static final double MAX_ACCELERATION = Constants.DriveTrain.MAX_ACCELERATION_IPSS;
+    private static final double HALF_WIDTH = Units.metersToInches(Constants.DriveTrain.WIDTH) / 2;
+
+    private File _pathWeaverDirectory;
+    private File _pathfinderDirectory;
+    private Map<String, Trajectory> _pathfinder = new HashMap<>();
+    private List<String> _problems = new ArrayList<>();
+
+    public static void main(String... args) throws IOException {
+        AutoChecker checker = new AutoChecker(new File(args[0]), new File(args[1]));
+        checker.checkPaths();
+        checker.checkModes();
+        if (!checker._problems.isEmpty()) {
+            System.out.println();
+            System.out.println(checker._problems.size() + " problem(s):");
+            checker._problems.forEach(problem -> System.out.println("  " + problem));
+            System.exit(1);
+        }
+    }
+
+    private AutoChecker(File pathWeaverDirectory, File pathfinderDirectory) {
+        _pathWeaverDirectory = pathWeaverDirectory;
+        _pathfinderDirectory = pathfinderDirectory;
+    }
+
+    private void checkPaths() throws IOException {
+        System.out.printf("Limits: %.0f in/s, %.1f in/s^2, track width %.1f in%n", MAX_SPEED, MAX_ACCELERATION, HALF_WIDTH * 2);
+        File[] pathWeaverFiles = _pathWeaverDirectory.listFiles((dir, name) -> name.endsWith(Constants.AutoDrivePath.PATHWEAVER_EXTENSION));
+        if (pathWeaverFiles != null) {
+            for (File file : pathWeaverFiles) {
+                checkPathWeaver(file);
+            }
+        }
+        File[] pathfinderFiles = _pathfinderDirectory.listFiles((dir, name) -> name.endsWith(".left" + Constants.AutoDrivePath.PATHFINDER_EXTENSION)
+                || name.endsWith(".right" + Constants.AutoDrivePath.PATHFINDER_EXTENSION));
+        if (pathfinderFiles != null) {
+            for (File file : pathfinderFiles) {
+                checkPathfinder(file);
+            }
+        }
+    }
+
+    private void checkPathWeaver(File file) throws IOException {
+        // PathWeaver here is set up in inches, so the states are too.
+        edu.wpi.first.wpilibj.trajectory.Trajectory trajectory = TrajectoryUtil.fromPathweaverJson(file.toPath());
+        double maxVelocity = 0;
+        double maxAcceleration = 0;
+        double maxCurvature = 0;
+        double maxWheel = 0;
+        for (edu.wpi.first.wpilibj.trajectory.Trajectory.State state : trajectory.getStates()) {
+            maxVelocity = Math.max(maxVelocity, Math.abs(state.velocityMetersPerSecond));
+            maxAcceleration = Math.max(maxAcceleration, Math.abs(state.accelerationMetersPerSecondSq));
+            maxCurvature = Math.max(maxCurvature, Math.abs(state.curvatureRadPerMeter));
+            maxWheel = Math.max(maxWheel, Math.abs(state.velocityMetersPerSecond) * (1 + Math.abs(state.curvatureRadPerMeter) * HALF_WIDTH));
+        }
+        String name = file.getName();
+        System.out.printf("%-40s %6.2fs  v %6.1f  a %6.1f  curvature %.4f/in  outside wheel %6.1f%n",
+                name, trajectory.getTotalTimeSeconds(), maxVelocity, maxAcceleration, maxCurvature, maxWheel);
+        checkLimit(name, "velocity", maxVelocity, MAX_SPEED);
+        checkLimit(name, "acceleration", maxAcceleration, MAX_ACCELERATION);
+        checkLimit(name, "outside wheel speed", maxWheel, MAX_SPEED);
+    }
+
+    private void checkPathfinder(File file) throws IOException {
+        Trajectory trajectory = readPathfinder(file);
+        String name = file.getName().substring(0, file.getName().length() - Constants.AutoDrivePath.PATHFINDER_EXTENSION.length());
+        _pathfinder.put(name, trajectory);
+
+        // Each side is a wheel, so its own velocity already includes the curves.
+        double maxVelocity = 0;
+        double maxAcceleration = 0;
+        double maxCurvature = 0;
+        for (int i = 0; i < trajectory.length(); i++) {
+            Trajectory.Segment segment = trajectory.get(i);
+            maxVelocity = Math.max(maxVelocity, Math.abs(segment.velocity));
+            maxAcceleration = Math.max(maxAcceleration, Math.abs(segment.acceleration));
+            if (i > 0) {
+                Trajectory.Segment previous = trajectory.get(i - 1);
+                double step = segment.position - previous.position;
+                if (step > 0.1) {
+                    double turn = Math.abs(Pathfinder.d2r(Pathfinder.boundHalfDegrees(Pathfinder.r2d(segment.heading - previous.heading))));
+                    maxCurvature = Math.max(maxCurvature, turn / step);
+                }
+            }
+        }
+        System.out.printf("%-40s %6.2fs  v %6.1f  a %6.1f  curvature %.4f/in%n",
+                name, trajectory.length() * trajectory.get(0).dt, maxVelocity, maxAcceleration, maxCurvature);
+        checkLimit(name, "velocity", maxVelocity, MAX_SPEED);
+        checkLimit(name, "acceleration", maxAcceleration, MAX_ACCELERATION);
+    }
+
+    private Trajectory readPathfinder(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath());
+        List<Trajectory.Segment> segments = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            double[] values = new double[8];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Double.parseDouble(fields[i].trim());
+            }
+            segments.add(new Trajectory.Segment(values[0], values[1], values[2], values[3], values[4], values[5], values[6], values[7]));
+        }
+        return new Trajectory(segments.toArray(new Trajectory.Segment[0]));
+    }
+
+    private void checkLimit(String name, String what, double value, double limit) {
+        if (value > limit * TOLERANCE) {
+            _problems.add(String.format("%s: %s %.1f is over the limit of %.1f", name, what, value, limit));
+        }
+    }
+
+    private void checkModes() {
+        System.out.println();
+        for (AutoChooser.Mode mode : AutoChooser.Mode.values()) {
+            report(mode.getLabel(), AutoRoutines.forMode(mode));
+        }
+        // Built but not on the mode switch yet
+        report("TenBallAuto (not on the switch)", AutoRoutines.tenBall().after(AutoRoutine.zero()));
+    }
+
+    private void report(String label, AutoRoutine routine) {
+        double total = 0;
+        StringBuilder detail = new StringBuilder();
+        for (AutoRoutine.Estimate estimate : routine.estimate(this::getSeconds)) {
+            total += estimate.getSeconds();
+            detail.append(String.format("%n    %-40s %5.2fs", estimate.getLabel(), estimate.getSeconds()));
+        }
+        System.out.printf("%-40s %5.2fs%s%n", label, total, detail);
+        if (total > AUTO_SECONDS) {
+            _problems.add(String.format("%s: estimated %.2fs is over the %.0fs autonomous period", label, total, AUTO_SECONDS));
+        }
+    }
+
+    /**
+     * @return seconds to drive the Pathfinder paths stitched together, or 0 (and a problem) if one is missing
+     */
+    private double getSeconds(String... names) {
+        Trajectory[] lefts = new Trajectory[names.length];
+        Trajectory[] rights = new Trajectory[names.length];
+        for (int i = 0; i < names.length; i++) {
+            lefts[i] = _pathfinder.get(names[i] + ".left");
+            rights[i] = _pathfinder.get(names[i] + ".right");
+            if (lefts[i] == null || rights[i] == null) {
+                _problems.add("Missing path " + names[i]);
+                return 0;
+            }
+        }
+        Trajectory left = names.length == 1 ? lefts[0] : PathStitcher.stitch(lefts, rights).getLeft();
+        return left.length() * left.get(0).dt;
+    }
+}
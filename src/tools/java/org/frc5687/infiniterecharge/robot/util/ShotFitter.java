@@ -0,0 +1,194 @@
+package org.frc5687.infiniterecharge.robot.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Desktop tool, run with ./gradlew fitShots -Plogs=a.csv,b.csv (not deployed).  Reads shot logs written by
+ * ShotRecorder and fits hood angle and flywheel RPM against distance with a least squares quadratic, the same shape
+ * as the old spreadsheet fits, but from the hood angle and release RPM each made shot actually had.  Only shots tagged
+ * made with the turret within MAX_TURRET_ERROR count, so a miss from bad aim doesn't pull the curves.
+ *
+ * The new table keeps the current table's distances: those inside the range of the data (plus MARGIN) get fitted
+ * values, the rest and every time of flight are carried over.  Prints make rates per distance band as a sanity check.
+ */
+public class ShotFitter {
+    private static final double MAX_TURRET_ERROR = 2; // degrees
+    private static final int MIN_SHOTS = 6;
+    private static final double MARGIN = 12; // inches past the data we trust the fit
+    private static final double BAND = 24; // inches, for the make rate summary
+
+    private List<double[]> _made = new ArrayList<>();
+    private TreeMap<Integer, int[]> _bands = new TreeMap<>();
+
+    /**
+     * @param args current table, output table, then one or more shot logs
+     */
+    public static void main(String... args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: ShotFitter <current shots.csv> <new shots.csv> <shotlog.csv>...");
+            System.exit(1);
+        }
+        ShotFitter fitter = new ShotFitter();
+        for (int i = 2; i < args.length; i++) {
+            fitter.read(new File(args[i]));
+        }
+        fitter.printBands();
+        if (fitter._made.size() < MIN_SHOTS) {
+            System.out.println("Only " + fitter._made.size() + " usable made shots, need " + MIN_SHOTS);
+            System.exit(1);
+        }
+        fitter.fit(new File(args[0]), new File(args[1]));
+    }
+
+    private void read(File file) throws IOException {
+        int count = 0;
+        for (String line : Files.readAllLines(file.toPath())) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            // time,distance,hood,rpm,target,turretError,dip,recoveryMillis,outcome
+            String[] fields = line.split(",");
+            double distance = Double.parseDouble(fields[1]);
+            double hood = Double.parseDouble(fields[2]);
+            double rpm = Double.parseDouble(fields[3]);
+            double turretError = Double.parseDouble(fields[5]);
+            char outcome = fields[8].trim().charAt(0);
+            count++;
+            if (outcome == ShotRecorder.UNTAGGED) {
+                continue;
+            }
+            int[] band = _bands.computeIfAbsent((int) Math.floor(distance / BAND), key -> new int[2]);
+            band[1]++;
+            if (outcome == ShotRecorder.MADE) {
+                band[0]++;
+                if (Math.abs(turretError) <= MAX_TURRET_ERROR) {
+                    _made.add(new double[] { distance, hood, rpm });
+                }
+            }
+        }
+        System.out.println("Read " + count + " shots from " + file);
+    }
+
+    private void printBands() {
+        for (Map.Entry<Integer, int[]> band : _bands.entrySet()) {
+            int from = (int) (band.getKey() * BAND);
+            int[] counts = band.getValue();
+            System.out.printf("  %3d-%3d in: %d/%d made (%.0f%%)%n", from, (int) (from + BAND), counts[0], counts[1], 100.0 * counts[0] / counts[1]);
+        }
+    }
+
+    private void fit(File current, File output) throws IOException {
+        double[] hood = quadratic(1);
+        double[] rpm = quadratic(2);
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (double[] shot : _made) {
+            min = Math.min(min, shot[0]);
+            max = Math.max(max, shot[0]);
+        }
+        System.out.printf("Hood = %.6f d^2 + %.4f d + %.2f, rms error %.2f deg%n", hood[2], hood[1], hood[0], rms(hood, 1));
+        System.out.printf("RPM  = %.6f d^2 + %.4f d + %.1f, rms error %.0f rpm%n", rpm[2], rpm[1], rpm[0], rms(rpm, 2));
+        System.out.printf("Fitted from %d shots between %.0f and %.0f in%n", _made.size(), min, max);
+
+        TreeMap<Double, double[]> rows = new TreeMap<>();
+        for (String line : Files.readAllLines(current.toPath())) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            rows.put(Double.parseDouble(fields[0].trim()), new double[] {
+                    Double.parseDouble(fields[1].trim()),
+                    Double.parseDouble(fields[2].trim()),
+                    Double.parseDouble(fields[3].trim())
+            });
+        }
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(output))) {
+            writer.write("# distance (in), hood (deg), rpm, time of flight (s)");
+            writer.newLine();
+            for (Map.Entry<Double, double[]> row : rows.entrySet()) {
+                double distance = row.getKey();
+                double[] values = row.getValue();
+                if (distance >= min - MARGIN && distance <= max + MARGIN) {
+                    double newHood = evaluate(hood, distance);
+                    double newRPM = evaluate(rpm, distance);
+                    System.out.printf("  %5.0f in: hood %5.1f -> %5.1f, rpm %5.0f -> %5.0f%n", distance, values[0], newHood, values[1], newRPM);
+                    values[0] = Math.round(newHood * 10) / 10.0;
+                    values[1] = Math.round(newRPM);
+                }
+                writer.write(distance + "," + values[0] + "," + values[1] + "," + values[2]);
+                writer.newLine();
+            }
+        }
+        System.out.println("Wrote " + output + "; copy it to src/main/deploy/shots.csv (or /U/shots.csv) once it looks right");
+    }
+
+    /**
+     * Least squares a + b*d + c*d^2 for the given column against distance.
+     */
+    private double[] quadratic(int column) {
+        double[][] normal = new double[3][4];
+        for (double[] shot : _made) {
+            double[] terms = { 1, shot[0], shot[0] * shot[0] };
+            for (int row = 0; row < 3; row++) {
+                for (int col = 0; col < 3; col++) {
+                    normal[row][col] += terms[row] * terms[col];
+                }
+                normal[row][3] += terms[row] * shot[column];
+            }
+        }
+        // Gaussian elimination with partial pivoting.
+        for (int pivot = 0; pivot < 3; pivot++) {
+            int best = pivot;
+            for (int row = pivot + 1; row < 3; row++) {
+                if (Math.abs(normal[row][pivot]) > Math.abs(normal[best][pivot])) {
+                    best = row;
+                }
+            }
+            double[] swap = normal[pivot];
+            normal[pivot] = normal[best];
+            normal[best] = swap;
+            if (Math.abs(normal[pivot][pivot]) < 1e-12) {
+                throw new IllegalStateException("Shots are all at too few distances to fit a curve");
+            }
+            for (int row = pivot + 1; row < 3; row++) {
+                double factor = normal[row][pivot] / normal[pivot][pivot];
+                for (int col = pivot; col < 4; col++) {
+                    normal[row][col] -= factor * normal[pivot][col];
+                }
+            }
+        }
+        double[] coefficients = new double[3];
+        for (int row = 2; row >= 0; row--) {
+            double sum = normal[row][3];
+            for (int col = row + 1; col < 3; col++) {
+                sum -= normal[row][col] * coefficients[col];
+            }
+            coefficients[row] = sum / normal[row][row];
+        }
+        return coefficients;
+    }
+
+    private double evaluate(double[] coefficients, double distance) {
+        return coefficients[0] + coefficients[1] * distance + coefficients[2] * distance * distance;
+    }
+
+    private double rms(double[] coefficients, int column) {
+        double sum = 0;
+        for (double[] shot : _made) {
+            double error = evaluate(coefficients, shot[0]) - shot[column];
+            sum += error * error;
+        }
+        return Math.sqrt(sum / _made.size());
+    }
+}